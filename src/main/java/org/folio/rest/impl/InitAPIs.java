@@ -12,8 +12,11 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.rest.resource.interfaces.InitAPI;
 import org.folio.template.dao.TemplateDaoImpl;
+import org.folio.template.resolver.HandlebarsTemplateResolver;
+import org.folio.template.resolver.LocalTemplateResolvers;
 import org.folio.template.resolver.MustacheTemplateResolver;
 import org.folio.template.resolver.TemplateResolver;
+import org.folio.template.service.RenderJobWorker;
 import org.folio.template.util.TemplateEngineHelper;
 
 import java.net.URL;
@@ -35,6 +38,9 @@ public class InitAPIs implements InitAPI {
       LOG.info("init:: Registering Template resolver");
       registerTemplateResolver("mustache",
         "template-resolver.mustache.queue", new MustacheTemplateResolver(), vertx);
+      registerTemplateResolver(HandlebarsTemplateResolver.NAME,
+        "template-resolver.handlebars.queue", new HandlebarsTemplateResolver(), vertx);
+      RenderJobWorker.getInstance().startScan(vertx);
 
       resultHandler.handle(Future.succeededFuture(true));
     }
@@ -47,6 +53,7 @@ public class InitAPIs implements InitAPI {
       .getLocalMap(TemplateEngineHelper.TEMPLATE_RESOLVERS_LOCAL_MAP);
 
     registerService(vertx, address, TemplateResolver.class, resolverInstance);
+    LocalTemplateResolvers.register(address, resolverInstance);
     templateResolverAddressesMap.put(name, address);
   }
 
@@ -0,0 +1,63 @@
+package org.folio.rest.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.HttpStatus;
+import org.folio.rest.jaxrs.model.Attachment;
+import org.folio.rest.jaxrs.resource.TemplateAttachments;
+import org.folio.rest.tools.utils.BinaryOutStream;
+import org.folio.template.service.TemplateService;
+import org.folio.template.service.TemplateServiceImpl;
+import org.folio.template.util.AttachmentContent;
+import org.folio.template.util.TemplateETag;
+import org.folio.template.util.TemplateEngineHelper;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.Objects;
+
+public class TemplateAttachmentsImpl implements TemplateAttachments {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+  // the content stored under a hash never changes, but it belongs to the tenant, so shared caches must not keep it
+  private static final String IMMUTABLE = "private, max-age=31536000, immutable";
+
+  @Override
+  public void getTemplateAttachmentsByHash(String hash, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    LOG.debug("getTemplateAttachmentsByHash:: Retrieving attachment content {}", hash);
+    vertxContext.runOnContext(v -> {
+      try {
+        TemplateService templateService = new TemplateServiceImpl(vertxContext.owner(), okapiHeaders);
+        templateService.getAttachmentContent(hash)
+          .map(optionalContent -> optionalContent.orElseThrow(() -> new NotFoundException("Attachment not found")))
+          .map(TemplateAttachmentsImpl::buildContentResponse)
+          .otherwise(TemplateEngineHelper::mapExceptionToResponse)
+          .onComplete(asyncResultHandler);
+      } catch (Exception e) {
+        LOG.warn("Error retrieving attachment content {}: {}", hash, e.getMessage());
+        asyncResultHandler.handle(Future.succeededFuture(
+          TemplateEngineHelper.mapExceptionToResponse(e)));
+      }
+    });
+  }
+
+  private static Response buildContentResponse(Attachment content) {
+    BinaryOutStream data = new BinaryOutStream();
+    data.setData(AttachmentContent.decode(content.getData()));
+    return Response.status(HttpStatus.SC_OK)
+      .type(Objects.requireNonNullElse(content.getContentType(), MediaType.APPLICATION_OCTET_STREAM))
+      .header(HttpHeaders.ETAG, TemplateETag.format(content.getHash()))
+      .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+      .entity(data)
+      .build();
+  }
+}
@@ -0,0 +1,45 @@
+package org.folio.rest.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.HttpStatus;
+import org.folio.rest.jaxrs.resource.TemplateExport;
+import org.folio.template.service.TemplateService;
+import org.folio.template.service.TemplateServiceImpl;
+import org.folio.template.util.TemplateEngineHelper;
+
+import javax.ws.rs.core.Response;
+import java.util.Map;
+
+public class TemplateExportImpl implements TemplateExport {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+  private static final String NDJSON = "application/x-ndjson";
+
+  @Override
+  public void getTemplateExport(String after, int limit, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    LOG.debug("getTemplateExport:: Exporting {} Templates after id {}", limit, after);
+    vertxContext.runOnContext(v -> {
+      try {
+        TemplateService templateService = new TemplateServiceImpl(vertxContext.owner(), okapiHeaders);
+        templateService.exportTemplates(after, limit)
+          .map(page -> Response.status(HttpStatus.SC_OK)
+            .type(NDJSON)
+            .entity(page)
+            .build())
+          .otherwise(TemplateEngineHelper::mapExceptionToResponse)
+          .onComplete(asyncResultHandler);
+      } catch (Exception e) {
+        LOG.warn("Error exporting Templates: {}", e.getMessage());
+        asyncResultHandler.handle(Future.succeededFuture(
+          TemplateEngineHelper.mapExceptionToResponse(e)));
+      }
+    });
+  }
+}
@@ -0,0 +1,42 @@
+package org.folio.rest.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.TemplateLookupRequest;
+import org.folio.rest.jaxrs.resource.TemplateLookup;
+import org.folio.template.service.TemplateService;
+import org.folio.template.service.TemplateServiceImpl;
+import org.folio.template.util.TemplateEngineHelper;
+
+import javax.ws.rs.core.Response;
+import java.util.Map;
+
+public class TemplateLookupImpl implements TemplateLookup {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  @Override
+  public void postTemplateLookup(TemplateLookupRequest entity, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+
+    LOG.debug("postTemplateLookup:: Retrieving {} Templates by ID", entity.getIds().size());
+    vertxContext.runOnContext(v -> {
+      try {
+        TemplateService templateService = new TemplateServiceImpl(vertxContext.owner(), okapiHeaders);
+        templateService.lookupTemplates(entity)
+          .map(PostTemplateLookupResponse::respond200WithApplicationJson)
+          .map(Response.class::cast)
+          .otherwise(TemplateEngineHelper::mapExceptionToResponse)
+          .onComplete(asyncResultHandler);
+      } catch (Exception e) {
+        LOG.warn("Error retrieving Templates by ID: {}", e.getMessage());
+        asyncResultHandler.handle(Future.succeededFuture(
+          TemplateEngineHelper.mapExceptionToResponse(e)));
+      }
+    });
+  }
+}
@@ -6,11 +6,16 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.MailMergeRequest;
+import org.folio.rest.jaxrs.model.RenderJobRequest;
 import org.folio.rest.jaxrs.model.TemplatePreviewRequest;
 import org.folio.rest.jaxrs.model.TemplateProcessingRequest;
 import org.folio.rest.jaxrs.resource.TemplateRequest;
+import org.folio.template.service.RenderJobService;
+import org.folio.template.service.RenderJobServiceImpl;
 import org.folio.template.service.TemplateService;
 import org.folio.template.service.TemplateServiceImpl;
+import org.folio.template.util.ResponseCompression;
 import org.folio.template.util.TemplateEngineHelper;
 
 import javax.ws.rs.core.Response;
@@ -31,6 +36,8 @@ public class TemplateRequestImpl implements TemplateRequest {
         templateService.processTemplate(entity)
           .map(PostTemplateRequestResponse::respond200WithApplicationJson)
           .map(Response.class::cast)
+          .compose(response -> ResponseCompression.getInstance().compress(vertxContext.owner(), response,
+            okapiHeaders))
           .otherwise(TemplateEngineHelper::mapExceptionToResponse)
           .onComplete(asyncResultHandler);
       } catch (Exception e) {
@@ -53,6 +60,8 @@ public class TemplateRequestImpl implements TemplateRequest {
         templateService.previewTemplate(entity)
           .map(PostTemplateRequestPreviewResponse::respond200WithApplicationJson)
           .map(Response.class::cast)
+          .compose(response -> ResponseCompression.getInstance().compress(vertxContext.owner(), response,
+            okapiHeaders))
           .otherwise(TemplateEngineHelper::mapExceptionToResponse)
           .onComplete(asyncResultHandler);
       } catch (Exception e) {
@@ -62,4 +71,91 @@ public class TemplateRequestImpl implements TemplateRequest {
       }
     });
   }
+
+  @Override
+  public void postTemplateRequestMailMerge(MailMergeRequest entity, Map<String, String> okapiHeaders,
+                                           Handler<AsyncResult<Response>> asyncResultHandler,
+                                           Context vertxContext) {
+    LOG.debug("postTemplateRequestMailMerge:: Processing mail merge of Template with ID : {}", entity.getTemplateId());
+    vertxContext.runOnContext(v -> {
+      try {
+        TemplateService templateService = new TemplateServiceImpl(vertxContext.owner(), okapiHeaders);
+        templateService.processMailMerge(entity)
+          .map(PostTemplateRequestMailMergeResponse::respond200WithApplicationJson)
+          .map(Response.class::cast)
+          .compose(response -> ResponseCompression.getInstance().compress(vertxContext.owner(), response,
+            okapiHeaders))
+          .otherwise(TemplateEngineHelper::mapExceptionToResponse)
+          .onComplete(asyncResultHandler);
+      } catch (Exception e) {
+        LOG.warn("Error in posting mail merge request: {}", e.getMessage());
+        asyncResultHandler.handle(Future.succeededFuture(
+          TemplateEngineHelper.mapExceptionToResponse(e)));
+      }
+    });
+  }
+
+  @Override
+  public void postTemplateRequestJobs(RenderJobRequest entity, Map<String, String> okapiHeaders,
+                                      Handler<AsyncResult<Response>> asyncResultHandler,
+                                      Context vertxContext) {
+    LOG.debug("postTemplateRequestJobs:: Submitting render job for Template with ID : {}", entity.getTemplateId());
+    vertxContext.runOnContext(v -> {
+      try {
+        RenderJobService renderJobService = new RenderJobServiceImpl(vertxContext.owner(), okapiHeaders);
+        renderJobService.submitJob(entity)
+          .map(PostTemplateRequestJobsResponse::respond201WithApplicationJson)
+          .map(Response.class::cast)
+          .otherwise(TemplateEngineHelper::mapExceptionToResponse)
+          .onComplete(asyncResultHandler);
+      } catch (Exception e) {
+        LOG.warn("Error in submitting render job: {}", e.getMessage());
+        asyncResultHandler.handle(Future.succeededFuture(
+          TemplateEngineHelper.mapExceptionToResponse(e)));
+      }
+    });
+  }
+
+  @Override
+  public void getTemplateRequestJobsByJobId(String jobId, Map<String, String> okapiHeaders,
+                                            Handler<AsyncResult<Response>> asyncResultHandler,
+                                            Context vertxContext) {
+    LOG.debug("getTemplateRequestJobsByJobId:: Retrieving render job {}", jobId);
+    vertxContext.runOnContext(v -> {
+      try {
+        RenderJobService renderJobService = new RenderJobServiceImpl(vertxContext.owner(), okapiHeaders);
+        renderJobService.getJob(jobId)
+          .map(GetTemplateRequestJobsByJobIdResponse::respond200WithApplicationJson)
+          .map(Response.class::cast)
+          .otherwise(TemplateEngineHelper::mapExceptionToResponse)
+          .onComplete(asyncResultHandler);
+      } catch (Exception e) {
+        LOG.warn("Error in retrieving render job {}: {}", jobId, e.getMessage());
+        asyncResultHandler.handle(Future.succeededFuture(
+          TemplateEngineHelper.mapExceptionToResponse(e)));
+      }
+    });
+  }
+
+  @Override
+  public void getTemplateRequestJobsResultsByJobId(String jobId, int offset, int limit,
+                                                   Map<String, String> okapiHeaders,
+                                                   Handler<AsyncResult<Response>> asyncResultHandler,
+                                                   Context vertxContext) {
+    LOG.debug("getTemplateRequestJobsResultsByJobId:: Retrieving results of render job {}", jobId);
+    vertxContext.runOnContext(v -> {
+      try {
+        RenderJobService renderJobService = new RenderJobServiceImpl(vertxContext.owner(), okapiHeaders);
+        renderJobService.getJobResults(jobId, offset, limit)
+          .map(GetTemplateRequestJobsResultsByJobIdResponse::respond200WithApplicationJson)
+          .map(Response.class::cast)
+          .otherwise(TemplateEngineHelper::mapExceptionToResponse)
+          .onComplete(asyncResultHandler);
+      } catch (Exception e) {
+        LOG.warn("Error in retrieving results of render job {}: {}", jobId, e.getMessage());
+        asyncResultHandler.handle(Future.succeededFuture(
+          TemplateEngineHelper.mapExceptionToResponse(e)));
+      }
+    });
+  }
 }
@@ -4,18 +4,21 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import org.apache.commons.collections4.map.CaseInsensitiveMap;
 import org.folio.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.rest.jaxrs.model.Template;
-import org.folio.rest.jaxrs.model.TemplatesCollection;
 import org.folio.rest.jaxrs.resource.Templates;
 import org.folio.template.service.TemplateService;
 import org.folio.template.service.TemplateServiceImpl;
+import org.folio.template.util.ResponseCompression;
+import org.folio.template.util.TemplateETag;
 import org.folio.template.util.TemplateEngineHelper;
 
 import jakarta.validation.constraints.NotNull;
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.Map;
@@ -44,20 +47,19 @@ public class TemplateResourceImpl implements Templates {
   }
 
   @Override
-  public void getTemplates(int offset, int limit, String query, Map<String, String> okapiHeaders,
-    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+  public void getTemplates(int offset, int limit, String query, String fields,
+    Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
 
     LOG.debug("getTemplates:: Retrieving Templates with query {}, offset {}, limit {}", query, offset, limit);
     vertxContext.runOnContext(v -> {
       try {
         LOG.warn("Trying to Retrieve Templates with query {}", query);
         TemplateService templateService = new TemplateServiceImpl(vertxContext.owner(), okapiHeaders);
-        templateService.getTemplates(query, offset, limit)
-          .map(templates -> new TemplatesCollection()
-            .withTemplates(templates)
-            .withTotalRecords(templates.size())
-          ).map(GetTemplatesResponse::respond200WithApplicationJson)
+        templateService.getTemplates(query, offset, limit, fields)
+          .map(GetTemplatesResponse::respond200WithApplicationJson)
           .map(Response.class::cast)
+          .compose(response -> ResponseCompression.getInstance().compress(vertxContext.owner(), response,
+            okapiHeaders))
           .otherwise(TemplateEngineHelper::mapExceptionToResponse)
           .onComplete(asyncResultHandler);
       } catch (Exception e) {
@@ -77,11 +79,20 @@ public class TemplateResourceImpl implements Templates {
       try {
         LOG.warn("Trying to Retrieve Template by id {}", templateId);
         TemplateService templateService = new TemplateServiceImpl(vertxContext.owner(), okapiHeaders);
-        templateService.getTemplateById(templateId)
-          .map(optionalTemplate -> optionalTemplate.orElseThrow(() ->
-            new NotFoundException(String.format("Template with id '%s' not found", templateId))))
-          .map(GetTemplatesByTemplateIdResponse::respond200WithApplicationJson)
-          .map(Response.class::cast)
+        String ifNoneMatch = new CaseInsensitiveMap<>(okapiHeaders).get(HttpHeaders.IF_NONE_MATCH);
+        // the digest alone is enough to answer a revalidation, the template is loaded only when it changed
+        Future<Response> response = ifNoneMatch == null
+          ? getTemplateResponse(templateService, templateId)
+          : templateService.getTemplateDigest(templateId)
+            .compose(optionalDigest -> {
+              String etag = TemplateETag.format(optionalDigest.orElseThrow(() -> templateNotFound(templateId)));
+              return TemplateETag.matchesAny(ifNoneMatch, etag)
+                ? Future.succeededFuture(buildNotModified(templateId, etag))
+                : getTemplateResponse(templateService, templateId);
+            });
+        response
+          .compose(templateResponse -> ResponseCompression.getInstance().compress(vertxContext.owner(),
+            templateResponse, okapiHeaders))
           .otherwise(TemplateEngineHelper::mapExceptionToResponse)
           .onComplete(asyncResultHandler);
       } catch (Exception e) {
@@ -92,6 +103,15 @@ public class TemplateResourceImpl implements Templates {
     });
   }
 
+  private Future<Response> getTemplateResponse(TemplateService templateService, String templateId) {
+    return templateService.getStoredTemplateById(templateId)
+      .map(optionalTemplate -> optionalTemplate.orElseThrow(() -> templateNotFound(templateId)))
+      .map(stored -> Response.fromResponse(
+          GetTemplatesByTemplateIdResponse.respond200WithApplicationJson(stored.template()))
+        .header(HttpHeaders.ETAG, TemplateETag.format(stored.digest()))
+        .build());
+  }
+
   @Override
   public void putTemplatesByTemplateId(@NotNull String templateId, Template entity,
     Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
@@ -103,11 +123,12 @@ public class TemplateResourceImpl implements Templates {
         LOG.warn("Trying to Update Template by id {}", templateId);
         TemplateService templateService = new TemplateServiceImpl(vertxContext.owner(), okapiHeaders);
         entity.setId(templateId);
-        templateService.updateTemplate(entity)
-          .map(updated -> Boolean.TRUE.equals(updated)
-            ? PutTemplatesByTemplateIdResponse.respond200WithApplicationJson(entity)
-            : buildTemplateNotFound(templateId)
-          )
+        String ifMatch = new CaseInsensitiveMap<>(okapiHeaders).get(HttpHeaders.IF_MATCH);
+        templateService.updateTemplate(entity, ifMatch)
+          .map(digest -> Response.fromResponse(
+              PutTemplatesByTemplateIdResponse.respond200WithApplicationJson(entity))
+            .header(HttpHeaders.ETAG, TemplateETag.format(digest))
+            .build())
           .otherwise(TemplateEngineHelper::mapExceptionToResponse)
           .onComplete(asyncResultHandler);
       } catch (Exception e) {
@@ -133,6 +154,18 @@ public class TemplateResourceImpl implements Templates {
       .onComplete(asyncResultHandler);
   }
 
+  private static NotFoundException templateNotFound(String templateId) {
+    return new NotFoundException(String.format("Template with id '%s' not found", templateId));
+  }
+
+  private Response buildNotModified(String templateId, String etag) {
+    LOG.info("buildNotModified:: Template with id {} is not modified", templateId);
+    return Response
+      .status(Response.Status.NOT_MODIFIED)
+      .header(HttpHeaders.ETAG, etag)
+      .build();
+  }
+
   private Response buildTemplateNotFound(String templateId) {
     LOG.debug("buildTemplateNotFound:: Template with ID : {} is not found", templateId);
     LOG.info("buildTemplateNotFound:: Template with id {} not found", templateId);
@@ -0,0 +1,16 @@
+package org.folio.template;
+
+/**
+ * Indicates that a template context exceeds the configured size or nesting depth limit
+ */
+public class ContextTooLargeException extends RuntimeException {
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param message the detail message
+   */
+  public ContextTooLargeException(String message) {
+    super(message);
+  }
+}
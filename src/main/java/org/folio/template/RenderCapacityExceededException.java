@@ -0,0 +1,31 @@
+package org.folio.template;
+
+/**
+ * Indicates that a render request was rejected because the render capacity is exhausted
+ */
+public class RenderCapacityExceededException extends RuntimeException {
+
+  private final int status;
+  private final long retryAfterSeconds;
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param message the detail message
+   * @param status the HTTP status code to respond with
+   * @param retryAfterSeconds number of seconds after which the client may retry
+   */
+  public RenderCapacityExceededException(String message, int status, long retryAfterSeconds) {
+    super(message);
+    this.status = status;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,21 @@
+package org.folio.template;
+
+/**
+ * Indicates that rendering a template was aborted because it exceeded the render time or output size limit
+ */
+public class RenderLimitExceededException extends RuntimeException {
+
+  /**
+   * Failure code used to report the exception from a template resolver over the event bus
+   */
+  public static final int FAILURE_CODE = 422;
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param message the detail message
+   */
+  public RenderLimitExceededException(String message) {
+    super(message);
+  }
+}
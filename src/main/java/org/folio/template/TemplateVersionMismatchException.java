@@ -0,0 +1,11 @@
+package org.folio.template;
+
+/**
+ * Thrown when a template update is conditional on a template version that is no longer current
+ */
+public class TemplateVersionMismatchException extends RuntimeException {
+
+  public TemplateVersionMismatchException(String message) {
+    super(message);
+  }
+}
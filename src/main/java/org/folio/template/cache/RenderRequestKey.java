@@ -0,0 +1,12 @@
+package org.folio.template.cache;
+
+/**
+ * Identifies a render request by its content, used to detect identical concurrent requests.
+ */
+public record RenderRequestKey(
+  String tenantId,
+  String templateId,
+  String lang,
+  String outputFormat,
+  String contextHash) {
+}
@@ -0,0 +1,94 @@
+package org.folio.template.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.Attachment;
+import org.folio.rest.jaxrs.model.Result;
+import org.folio.rest.jaxrs.model.TemplateProcessingResult;
+import org.folio.template.util.ModuleConfig;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Process-wide cache of rendered template results, bounded by the approximate number of bytes
+ * held by the cached results. The cache is disabled unless a positive size is configured.
+ */
+public class RenderResultCache {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String MAX_SIZE_SETTING = "RESULT_CACHE_MAX_SIZE_BYTES";
+  public static final String TTL_SETTING = "RESULT_CACHE_TTL_SECONDS";
+  private static final long DEFAULT_TTL_SECONDS = 600;
+  private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+  private static final RenderResultCache INSTANCE = new RenderResultCache(
+    ModuleConfig.getLong(MAX_SIZE_SETTING, 0),
+    ModuleConfig.getLong(TTL_SETTING, DEFAULT_TTL_SECONDS));
+
+  private final Cache<RenderResultKey, TemplateProcessingResult> cache;
+
+  RenderResultCache(long maxSizeBytes, long ttlSeconds) {
+    if (maxSizeBytes <= 0) {
+      LOG.info("RenderResultCache:: Rendered result cache is disabled");
+      cache = null;
+      return;
+    }
+    LOG.info("RenderResultCache:: Rendered result cache is enabled, max size {} bytes, ttl {} s",
+      maxSizeBytes, ttlSeconds);
+    cache = Caffeine.newBuilder()
+      .maximumWeight(maxSizeBytes)
+      .weigher(RenderResultCache::weigh)
+      .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+      .build();
+  }
+
+  public static RenderResultCache getInstance() {
+    return INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return cache != null;
+  }
+
+  public Optional<TemplateProcessingResult> get(RenderResultKey key) {
+    if (cache == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(cache.getIfPresent(key));
+  }
+
+  public void put(RenderResultKey key, TemplateProcessingResult result) {
+    if (cache != null) {
+      cache.put(key, result);
+    }
+  }
+
+  /**
+   * Approximates the memory held by a cached entry, two bytes per character of the rendered output
+   * and attachments plus a fixed overhead for the key and the result objects.
+   */
+  static int weigh(RenderResultKey key, TemplateProcessingResult value) {
+    long chars = 0;
+    Result result = value.getResult();
+    if (result != null) {
+      chars += length(result.getHeader()) + length(result.getBody());
+      if (result.getAttachments() != null) {
+        for (Attachment attachment : result.getAttachments()) {
+          chars += length(attachment.getData()) + length(attachment.getContentId())
+            + length(attachment.getName());
+        }
+      }
+    }
+    chars += length(key.templateId()) + length(key.contextHash());
+    return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD_BYTES + chars * 2);
+  }
+
+  private static int length(String value) {
+    return value == null ? 0 : value.length();
+  }
+}
@@ -0,0 +1,16 @@
+package org.folio.template.cache;
+
+/**
+ * Identifies a rendered result: the template version, the requested localization and output format,
+ * the tenant locale settings and a digest of the context the template was rendered with.
+ */
+public record RenderResultKey(
+  String tenantId,
+  String templateId,
+  long templateVersion,
+  String lang,
+  String outputFormat,
+  String languageTag,
+  String timeZoneId,
+  String contextHash) {
+}
@@ -0,0 +1,50 @@
+package org.folio.template.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+/**
+ * Coalesces identical concurrent requests: while a request with a given key is in flight,
+ * subsequent requests with the same key are attached to its future instead of being executed again.
+ *
+ * @param <K> request key type
+ * @param <V> result type
+ */
+public class RequestCoalescer<K, V> {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  private final ConcurrentMap<K, Future<V>> inFlight = new ConcurrentHashMap<>();
+
+  public Future<V> execute(K key, Supplier<Future<V>> request) {
+    Promise<V> promise = Promise.promise();
+    Future<V> leader = inFlight.putIfAbsent(key, promise.future());
+    if (leader != null) {
+      LOG.info("execute:: Identical request is already in flight, waiting for its result");
+      return leader;
+    }
+
+    try {
+      request.get().onComplete(result -> {
+        // remove before completing so that requests arriving afterwards are executed again
+        inFlight.remove(key, promise.future());
+        promise.handle(result);
+      });
+    } catch (Exception e) {
+      inFlight.remove(key, promise.future());
+      promise.fail(e);
+    }
+    return promise.future();
+  }
+
+  int inFlightCount() {
+    return inFlight.size();
+  }
+}
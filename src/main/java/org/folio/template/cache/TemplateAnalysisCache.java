@@ -0,0 +1,38 @@
+package org.folio.template.cache;
+
+import org.folio.rest.jaxrs.model.LocalizedTemplatesProperty;
+import org.folio.template.util.ModuleConfig;
+import org.folio.template.util.TemplateAnalysis;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Process-wide cache of template analyses keyed by the template source. A new template version has a
+ * new source and gets its own entry, the entries of old versions are evicted by size.
+ */
+public class TemplateAnalysisCache {
+
+  public static final String MAX_SIZE_SETTING = "TEMPLATE_ANALYSIS_CACHE_SIZE";
+  private static final long DEFAULT_MAX_SIZE = 1000;
+
+  private static final TemplateAnalysisCache INSTANCE =
+    new TemplateAnalysisCache(ModuleConfig.getLong(MAX_SIZE_SETTING, DEFAULT_MAX_SIZE));
+
+  private final Cache<TemplateAnalysis.Source, TemplateAnalysis> cache;
+
+  TemplateAnalysisCache(long maxSize) {
+    cache = Caffeine.newBuilder()
+      .maximumSize(maxSize)
+      .build();
+  }
+
+  public static TemplateAnalysisCache getInstance() {
+    return INSTANCE;
+  }
+
+  public TemplateAnalysis get(LocalizedTemplatesProperty template) {
+    return cache.get(new TemplateAnalysis.Source(template.getHeader(), template.getBody()),
+      TemplateAnalysis::analyze);
+  }
+}
@@ -0,0 +1,201 @@
+package org.folio.template.cache;
+
+import static io.vertx.core.Future.failedFuture;
+import static io.vertx.core.Future.succeededFuture;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.template.client.CirculationStorageClient;
+import org.folio.template.util.ModuleConfig;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Process-wide index of the patron notice policies referencing each template, so the deletion of a template
+ * is decided by a local lookup instead of a wildcard query over all policies in circulation storage. The index
+ * of a tenant is rebuilt from all patron notice policies when it is missing or stale, deletions wait for the
+ * rebuild and concurrent deletions share it. The index is trusted for the configured time after the rebuild
+ * started, so a template added to a policy within that time may still be deleted. A time of 0 disables the
+ * index.
+ */
+public class TemplateReferenceIndex {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String TTL_SETTING = "TEMPLATE_REFERENCE_INDEX_TTL_SECONDS";
+  private static final long DEFAULT_TTL_SECONDS = 60;
+  private static final int PAGE_SIZE = 1000;
+  private static final String ALL_POLICIES_QUERY = "cql.allRecords=1";
+  private static final List<String> NOTICE_PROPERTIES = List.of("loanNotices", "requestNotices", "feeFineNotices");
+
+  private static final TemplateReferenceIndex INSTANCE = new TemplateReferenceIndex(
+    ModuleConfig.getLong(TTL_SETTING, DEFAULT_TTL_SECONDS), System::currentTimeMillis);
+
+  private record Snapshot(Map<String, Set<String>> policiesByTemplate, long builtAt) {}
+
+  private final long ttlMillis;
+  private final int pageSize;
+  private final LongSupplier clock;
+  private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+  private final Map<String, Future<Void>> refreshes = new ConcurrentHashMap<>();
+
+  TemplateReferenceIndex(long ttlSeconds, LongSupplier clock) {
+    this(ttlSeconds, PAGE_SIZE, clock);
+  }
+
+  TemplateReferenceIndex(long ttlSeconds, int pageSize, LongSupplier clock) {
+    this.ttlMillis = Math.max(0, ttlSeconds) * 1000;
+    this.pageSize = pageSize;
+    this.clock = clock;
+  }
+
+  public static TemplateReferenceIndex getInstance() {
+    return INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return ttlMillis > 0;
+  }
+
+  /**
+   * Looks up whether any patron notice policy of the tenant references the template, template ids are
+   * compared regardless of their case
+   *
+   * @return whether the template is referenced, empty when the index of the tenant is missing or stale
+   */
+  public Optional<Boolean> isReferenced(String tenantId, String templateId) {
+    Snapshot snapshot = snapshots.get(tenantId);
+    if (snapshot == null || clock.getAsLong() - snapshot.builtAt() >= ttlMillis) {
+      return Optional.empty();
+    }
+    return Optional.of(snapshot.policiesByTemplate().containsKey(normalize(templateId)));
+  }
+
+  /**
+   * Looks up whether any patron notice policy of the tenant references the template, the index of the tenant
+   * is rebuilt first when it is missing or stale
+   *
+   * @param tenantId   tenant the template belongs to
+   * @param templateId id of the template
+   * @param client     client reading the patron notice policies of the tenant
+   * @return future with whether the template is referenced, failed when the index could not be rebuilt
+   */
+  public Future<Boolean> lookUp(String tenantId, String templateId, CirculationStorageClient client) {
+    Optional<Boolean> referenced = isReferenced(tenantId, templateId);
+    if (referenced.isPresent()) {
+      return succeededFuture(referenced.get());
+    }
+    return refresh(tenantId, client)
+      .compose(v -> {
+        // the rebuilt index answers even when the rebuild took longer than the index lifetime
+        Snapshot snapshot = snapshots.get(tenantId);
+        return snapshot == null
+          ? failedFuture(new IllegalStateException("Template reference index was invalidated during the rebuild"))
+          : succeededFuture(snapshot.policiesByTemplate().containsKey(normalize(templateId)));
+      });
+  }
+
+  /**
+   * Drops the index of the tenant, the next lookup rebuilds it
+   */
+  public void invalidate(String tenantId) {
+    snapshots.remove(tenantId);
+  }
+
+  /**
+   * Rebuilds the index of the tenant, a rebuild that is already running is shared
+   *
+   * @param tenantId tenant to rebuild the index for
+   * @param client   client reading the patron notice policies of the tenant
+   * @return future completed when the index is rebuilt
+   */
+  Future<Void> refresh(String tenantId, CirculationStorageClient client) {
+    if (!isEnabled()) {
+      return failedFuture(new IllegalStateException("Template reference index is disabled"));
+    }
+    Promise<Void> promise = Promise.promise();
+    Future<Void> running = refreshes.putIfAbsent(tenantId, promise.future());
+    if (running != null) {
+      return running;
+    }
+    long startedAt = clock.getAsLong();
+    LOG.debug("refresh:: Rebuilding template reference index of tenant {}", tenantId);
+    fetchPolicies(client, 0, new JsonArray())
+      .onSuccess(policies -> {
+        replace(tenantId, policies, startedAt);
+        LOG.info("refresh:: Indexed template references of {} patron notice policies of tenant {}",
+          policies.size(), tenantId);
+      })
+      .onFailure(e -> LOG.warn("refresh:: Failed to rebuild template reference index of tenant {}: {}",
+        tenantId, e.getMessage()))
+      .<Void>mapEmpty()
+      .onComplete(result -> {
+        refreshes.remove(tenantId, promise.future());
+        promise.handle(result);
+      });
+    return promise.future();
+  }
+
+  /**
+   * Replaces the index of the tenant with the template references of the given patron notice policies
+   *
+   * @param tenantId tenant the policies belong to
+   * @param policies all patron notice policies of the tenant
+   * @param builtAt  time the policies were read at, the index is trusted for its lifetime after it
+   */
+  void replace(String tenantId, JsonArray policies, long builtAt) {
+    Map<String, Set<String>> policiesByTemplate = new HashMap<>();
+    for (int i = 0; i < policies.size(); i++) {
+      JsonObject policy = policies.getJsonObject(i);
+      for (String property : NOTICE_PROPERTIES) {
+        JsonArray notices = policy.getJsonArray(property, new JsonArray());
+        for (int j = 0; j < notices.size(); j++) {
+          String templateId = notices.getJsonObject(j).getString("templateId");
+          if (templateId != null) {
+            policiesByTemplate.computeIfAbsent(normalize(templateId), id -> new HashSet<>())
+              .add(policy.getString("id"));
+          }
+        }
+      }
+    }
+    snapshots.put(tenantId, new Snapshot(policiesByTemplate, builtAt));
+  }
+
+  private Future<JsonArray> fetchPolicies(CirculationStorageClient client, int offset, JsonArray policies) {
+    return client.findPatronNoticePolicies(ALL_POLICIES_QUERY, pageSize, offset)
+      .compose(page -> {
+        JsonArray pagePolicies = page.getJsonArray("patronNoticePolicies");
+        if (pagePolicies == null) {
+          return failedFuture(new IllegalStateException("Patron notice policies response has no policies"));
+        }
+        policies.addAll(pagePolicies);
+        int next = offset + pagePolicies.size();
+        if (pagePolicies.size() < pageSize || next >= page.getInteger("totalRecords", next)) {
+          return succeededFuture(policies);
+        }
+        return fetchPolicies(client, next, policies);
+      });
+  }
+
+  private static String normalize(String templateId) {
+    try {
+      return UUID.fromString(templateId).toString();
+    } catch (IllegalArgumentException e) {
+      return templateId.toLowerCase(Locale.ROOT);
+    }
+  }
+}
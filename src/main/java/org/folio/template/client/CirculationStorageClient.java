@@ -25,8 +25,13 @@ public class CirculationStorageClient extends OkapiClient {
   }
 
   public Future<JsonObject> findPatronNoticePolicies(String query, int limit) {
-    LOG.debug("findPatronNoticePolicies:: Finding Patron Notice Policies with query {}", query);
-    return getMany(PATRON_NOTICE_POLICIES_URL, query, limit)
+    return findPatronNoticePolicies(query, limit, 0);
+  }
+
+  public Future<JsonObject> findPatronNoticePolicies(String query, int limit, int offset) {
+    LOG.debug("findPatronNoticePolicies:: Finding Patron Notice Policies with query {}, offset {}",
+      query, offset);
+    return getMany(PATRON_NOTICE_POLICIES_URL, query, limit, offset)
       .compose(resp -> resp.statusCode() == HTTP_OK.toInt()
         ? succeededFuture(resp.bodyAsJsonObject())
         : failedFuture(new OkapiModuleClientException(format("Error getting patron notice " +
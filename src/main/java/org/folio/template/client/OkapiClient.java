@@ -59,6 +59,10 @@ public class OkapiClient {
     return request.send();
   }
 
+  public String getTenant() {
+    return tenant;
+  }
+
   private HttpRequest<Buffer> addHeaders(HttpRequest<Buffer> request) {
     return request
       .putHeader(ACCEPT, APPLICATION_JSON)
@@ -0,0 +1,40 @@
+package org.folio.template.dao;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.folio.rest.jaxrs.model.Attachment;
+
+import io.vertx.core.Future;
+
+/**
+ * Data access object for the content-addressed attachment store, attachments are stored once per hash
+ * of their content
+ */
+public interface AttachmentDao {
+
+  /**
+   * Stores the contents that are not stored yet, contents already stored under their hash keep their data
+   * and have their storage date renewed, so contents still in use are not purged
+   *
+   * @param contents attachment contents with hash, content type and data
+   * @return future completed when all contents are stored
+   */
+  Future<Void> saveContents(Collection<Attachment> contents);
+
+  /**
+   * Searches for attachment content by hash
+   *
+   * @param hash SHA-256 of the content in hex
+   * @return future with optional content
+   */
+  Future<Optional<Attachment>> getContent(String hash);
+
+  /**
+   * Deletes the contents whose storage date is older than the retention
+   *
+   * @param retentionDays number of days a content is kept after it was last stored
+   * @return future with the number of deleted contents
+   */
+  Future<Integer> purgeContents(int retentionDays);
+}
@@ -0,0 +1,73 @@
+package org.folio.template.dao;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.Attachment;
+import org.folio.rest.persist.PostgresClient;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Tuple;
+
+public class AttachmentDaoImpl implements AttachmentDao {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+  private static final String ATTACHMENTS_TABLE = "template_attachment";
+
+  // the content of a hash never changes, so an existing row only has its storage date renewed, at most daily
+  // to keep repeated renders from rewriting the row
+  private static final String INSERT_SQL = "INSERT INTO %s.%s AS attachment (id, jsonb) VALUES ($1, $2)"
+    + " ON CONFLICT (id) DO UPDATE SET stored_date = now()"
+    + " WHERE attachment.stored_date < now() - interval '1 day'";
+  private static final String PURGE_SQL = "DELETE FROM %s.%s WHERE stored_date < now() - $1::int * interval '1 day'";
+
+  private final PostgresClient pgClient;
+  private final String schemaName;
+
+  public AttachmentDaoImpl(Vertx vertx, String tenantId) {
+    pgClient = PostgresClient.getInstance(vertx, tenantId);
+    schemaName = convertToPsqlStandard(tenantId);
+  }
+
+  @Override
+  public Future<Void> saveContents(Collection<Attachment> contents) {
+    LOG.debug("saveContents:: Storing {} attachment contents", contents.size());
+    String sql = String.format(INSERT_SQL, schemaName, ATTACHMENTS_TABLE);
+    List<Future<Void>> inserts = contents.stream()
+      .map(content -> pgClient.execute(sql, Tuple.of(toId(content.getHash()), JsonObject.mapFrom(content)))
+        .<Void>mapEmpty())
+      .toList();
+    return Future.all(inserts).mapEmpty();
+  }
+
+  @Override
+  public Future<Optional<Attachment>> getContent(String hash) {
+    LOG.debug("getContent:: Retrieving attachment content {}", hash);
+    return pgClient.getById(ATTACHMENTS_TABLE, toId(hash).toString(), Attachment.class)
+      .map(Optional::ofNullable);
+  }
+
+  @Override
+  public Future<Integer> purgeContents(int retentionDays) {
+    LOG.debug("purgeContents:: Deleting attachment contents not stored for {} days", retentionDays);
+    String sql = String.format(PURGE_SQL, schemaName, ATTACHMENTS_TABLE);
+    return pgClient.execute(sql, Tuple.of(retentionDays))
+      .map(rows -> rows.rowCount());
+  }
+
+  /**
+   * Rows are keyed by a name-based UUID of the hash, the table uses the standard id column
+   */
+  private static UUID toId(String hash) {
+    return UUID.nameUUIDFromBytes(hash.getBytes(UTF_8));
+  }
+}
@@ -0,0 +1,90 @@
+package org.folio.template.dao;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.folio.rest.jaxrs.model.RenderJob;
+import org.folio.rest.jaxrs.model.RenderJobItem;
+
+import io.vertx.core.Future;
+
+/**
+ * Data access object for render jobs and their items
+ */
+public interface RenderJobDao {
+
+  /**
+   * Saves a new job together with all its items in one transaction
+   *
+   * @param job   job to save
+   * @param items items of the job
+   * @return future completed when the job is saved
+   */
+  Future<Void> createJob(RenderJob job, List<RenderJobItem> items);
+
+  /**
+   * Searches for job by id
+   *
+   * @param id job id
+   * @return future with optional job
+   */
+  Future<Optional<RenderJob>> getJobById(String id);
+
+  /**
+   * Takes over an unfinished job whose lease is not held by another worker
+   *
+   * @param id             job id
+   * @param leaseToken     token identifying the worker taking over the job
+   * @param leaseExpiresAt time until which the lease is held
+   * @return future with true if the lease was acquired
+   */
+  Future<Boolean> acquireLease(String id, String leaseToken, Date leaseExpiresAt);
+
+  /**
+   * Extends the lease of a job, provided it is still held with the token
+   *
+   * @param id             job id
+   * @param leaseToken     token the lease was acquired with
+   * @param leaseExpiresAt new time until which the lease is held
+   * @return future with true if the lease was extended, false if another worker took over the job
+   */
+  Future<Boolean> renewLease(String id, String leaseToken, Date leaseExpiresAt);
+
+  /**
+   * Searches for unfinished jobs whose lease expired, their workers stopped
+   *
+   * @param limit maximum number of jobs
+   * @return future with ids of the jobs
+   */
+  Future<List<String>> findAbandonedJobIds(int limit);
+
+  /**
+   * Gets items of a job in submission order
+   *
+   * @param jobId        job id
+   * @param fromSequence sequence of the first item
+   * @param limit        maximum number of items
+   * @param withContext  whether contexts of the items should be loaded
+   * @return future with list of items
+   */
+  Future<List<RenderJobItem>> getItems(String jobId, int fromSequence, int limit, boolean withContext);
+
+  /**
+   * Saves rendered items and the job progress in one transaction, provided the lease of the job is still
+   * held with the token of the job
+   *
+   * @param job   job with updated progress and the token of the lease it was acquired with
+   * @param items rendered items
+   * @return future with true if the checkpoint was saved, false if another worker took over the job
+   */
+  Future<Boolean> saveCheckpoint(RenderJob job, List<RenderJobItem> items);
+
+  /**
+   * Deletes the completed jobs, with their items, that were completed longer than the retention ago
+   *
+   * @param retentionDays number of days a completed job is kept
+   * @return future with the number of deleted jobs
+   */
+  Future<Integer> purgeJobs(int retentionDays);
+}
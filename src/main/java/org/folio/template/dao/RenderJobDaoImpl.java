@@ -0,0 +1,162 @@
+package org.folio.template.dao;
+
+import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.RenderJob;
+import org.folio.rest.jaxrs.model.RenderJobItem;
+import org.folio.rest.persist.Conn;
+import org.folio.rest.persist.PostgresClient;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+public class RenderJobDaoImpl implements RenderJobDao {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+  private static final String JOBS_TABLE = "render_job";
+  private static final String ITEMS_TABLE = "render_job_item";
+  private static final int INSERT_BATCH_SIZE = 1000;
+
+  private static final String ACQUIRE_LEASE_SQL = "UPDATE %s.%s"
+    + " SET jsonb = jsonb || jsonb_build_object('leaseExpiresAt', $2::text, 'leaseToken', $3::text)"
+    + " WHERE id = $1 AND jsonb->>'status' = 'IN_PROGRESS'"
+    + " AND (jsonb->>'leaseExpiresAt' IS NULL OR (jsonb->>'leaseExpiresAt')::timestamptz < now())";
+  private static final String RENEW_LEASE_SQL = "UPDATE %s.%s"
+    + " SET jsonb = jsonb || jsonb_build_object('leaseExpiresAt', $3::text)"
+    + " WHERE id = $1 AND jsonb->>'leaseToken' = $2";
+  private static final String FIND_ABANDONED_SQL = "SELECT id FROM %s.%s"
+    + " WHERE jsonb->>'status' = 'IN_PROGRESS'"
+    + " AND (jsonb->>'leaseExpiresAt' IS NULL OR (jsonb->>'leaseExpiresAt')::timestamptz < now()) LIMIT $1";
+  private static final String SAVE_CHECKPOINT_SQL = "UPDATE %s.%s SET jsonb = $3"
+    + " WHERE id = $1 AND jsonb->>'leaseToken' = $2";
+  private static final String EXPIRED_JOBS = "SELECT id FROM %1$s.%2$s WHERE jsonb->>'status' = 'COMPLETED'"
+    + " AND (jsonb->>'completedAt')::timestamptz < now() - $1::int * interval '1 day'";
+  private static final String PURGE_ITEMS_SQL = "DELETE FROM %1$s.%3$s WHERE jobid IN (" + EXPIRED_JOBS + ")";
+  private static final String PURGE_JOBS_SQL = "DELETE FROM %1$s.%2$s WHERE id IN (" + EXPIRED_JOBS + ")";
+  // ordering matches the render_job_item_jobid_sequence_idx index
+  private static final String GET_ITEMS_SQL = "SELECT %s AS jsonb FROM %s.%s"
+    + " WHERE jobid = $1 AND (jsonb->>'sequence')::int >= $2"
+    + " ORDER BY jobid, (jsonb->>'sequence')::int LIMIT $3";
+
+  private final PostgresClient pgClient;
+  private final String schemaName;
+
+  public RenderJobDaoImpl(Vertx vertx, String tenantId) {
+    pgClient = PostgresClient.getInstance(vertx, tenantId);
+    schemaName = convertToPsqlStandard(tenantId);
+  }
+
+  @Override
+  public Future<Void> createJob(RenderJob job, List<RenderJobItem> items) {
+    LOG.debug("createJob:: Saving render job {} with {} items", job.getId(), items.size());
+    return pgClient.withTrans(conn -> conn.save(JOBS_TABLE, job.getId(), job)
+      .compose(id -> saveItems(conn, items)))
+      .onSuccess(v -> LOG.info("createJob:: Saved render job {}", job.getId()));
+  }
+
+  private Future<Void> saveItems(Conn conn, List<RenderJobItem> items) {
+    Future<Void> future = Future.succeededFuture();
+    for (int from = 0; from < items.size(); from += INSERT_BATCH_SIZE) {
+      List<RenderJobItem> batch = items.subList(from, Math.min(items.size(), from + INSERT_BATCH_SIZE));
+      future = future.compose(v -> conn.saveBatch(ITEMS_TABLE, batch).mapEmpty());
+    }
+    return future;
+  }
+
+  @Override
+  public Future<Optional<RenderJob>> getJobById(String id) {
+    LOG.debug("getJobById:: Retrieving render job {}", id);
+    return pgClient.getById(JOBS_TABLE, id, RenderJob.class)
+      .map(Optional::ofNullable);
+  }
+
+  @Override
+  public Future<Boolean> acquireLease(String id, String leaseToken, Date leaseExpiresAt) {
+    LOG.debug("acquireLease:: Acquiring lease of render job {}", id);
+    String sql = String.format(ACQUIRE_LEASE_SQL, schemaName, JOBS_TABLE);
+    return pgClient.execute(sql, Tuple.of(UUID.fromString(id), leaseExpiresAt.toInstant().toString(), leaseToken))
+      .map(rows -> rows.rowCount() == 1);
+  }
+
+  @Override
+  public Future<Boolean> renewLease(String id, String leaseToken, Date leaseExpiresAt) {
+    LOG.debug("renewLease:: Renewing lease of render job {}", id);
+    String sql = String.format(RENEW_LEASE_SQL, schemaName, JOBS_TABLE);
+    return pgClient.execute(sql, Tuple.of(UUID.fromString(id), leaseToken, leaseExpiresAt.toInstant().toString()))
+      .map(rows -> rows.rowCount() == 1);
+  }
+
+  @Override
+  public Future<List<String>> findAbandonedJobIds(int limit) {
+    LOG.debug("findAbandonedJobIds:: Searching for abandoned render jobs");
+    String sql = String.format(FIND_ABANDONED_SQL, schemaName, JOBS_TABLE);
+    return pgClient.select(sql, Tuple.of(limit))
+      .map(rows -> {
+        List<String> ids = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+          ids.add(row.getUUID("id").toString());
+        }
+        return ids;
+      });
+  }
+
+  @Override
+  public Future<List<RenderJobItem>> getItems(String jobId, int fromSequence, int limit, boolean withContext) {
+    LOG.debug("getItems:: Retrieving items of render job {} from {}, limit {}", jobId, fromSequence, limit);
+    String sql = String.format(GET_ITEMS_SQL, withContext ? "jsonb" : "jsonb - 'context'", schemaName,
+      ITEMS_TABLE);
+    return pgClient.select(sql, Tuple.of(UUID.fromString(jobId), fromSequence, limit))
+      .map(rows -> {
+        List<RenderJobItem> items = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+          items.add(row.getJsonObject("jsonb").mapTo(RenderJobItem.class));
+        }
+        return items;
+      });
+  }
+
+  @Override
+  public Future<Boolean> saveCheckpoint(RenderJob job, List<RenderJobItem> items) {
+    LOG.debug("saveCheckpoint:: Saving {} processed items of render job {}", job.getProcessedItems(), job.getId());
+    JsonObject document;
+    try {
+      document = PostgresClient.pojo2JsonObject(job);
+    } catch (Exception e) {
+      LOG.warn("saveCheckpoint:: Failed to serialize render job {}: {}", job.getId(), e.getMessage());
+      return Future.failedFuture(e);
+    }
+    String sql = String.format(SAVE_CHECKPOINT_SQL, schemaName, JOBS_TABLE);
+    // the job row is updated first, items of a worker that lost its lease are not written
+    Tuple params = Tuple.of(UUID.fromString(job.getId()), job.getLeaseToken(), document);
+    return pgClient.withTrans(conn -> conn.execute(sql, params)
+      .compose(rows -> {
+        if (rows.rowCount() == 0) {
+          LOG.warn("saveCheckpoint:: Lease of render job {} was taken over by another worker", job.getId());
+          return Future.succeededFuture(false);
+        }
+        return conn.upsertBatch(ITEMS_TABLE, items).map(true);
+      }));
+  }
+
+  @Override
+  public Future<Integer> purgeJobs(int retentionDays) {
+    LOG.debug("purgeJobs:: Deleting render jobs completed more than {} days ago", retentionDays);
+    Tuple params = Tuple.of(retentionDays);
+    // items reference their job, so they are deleted first
+    return pgClient.withTrans(conn -> conn.execute(String.format(PURGE_ITEMS_SQL, schemaName, JOBS_TABLE,
+        ITEMS_TABLE), params)
+      .compose(v -> conn.execute(String.format(PURGE_JOBS_SQL, schemaName, JOBS_TABLE), params))
+      .map(rows -> rows.rowCount()));
+  }
+}
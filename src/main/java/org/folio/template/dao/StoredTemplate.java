@@ -0,0 +1,10 @@
+package org.folio.template.dao;
+
+import org.folio.rest.jaxrs.model.Template;
+
+/**
+ * Template as stored in the database with the MD5 digest of its stored document, the digest changes
+ * with every update of the template.
+ */
+public record StoredTemplate(Template template, String digest) {
+}
@@ -2,6 +2,7 @@ package org.folio.template.dao;
 
 import io.vertx.core.Future;
 import org.folio.rest.jaxrs.model.Template;
+import org.folio.rest.jaxrs.model.TemplatesCollection;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +22,28 @@ public interface TemplateDao {
    */
   Future<List<Template>> getTemplates(String query, int offset, int limit);
 
+  /**
+   * Searches for a page of templates together with the total number of matching templates, counted
+   * exactly up to a limit and estimated by the query planner above it
+   *
+   * @param query  CQL query
+   * @param offset offset
+   * @param limit  limit
+   * @param fields top-level properties to read from the stored templates, null to read whole templates
+   * @return future with the page of templates and the total number of matching templates
+   */
+  Future<TemplatesCollection> getTemplatesCollection(String query, int offset, int limit, List<String> fields);
+
+  /**
+   * Reads a page of stored template documents in id order, the page starts after the given id, so
+   * reading a page takes the same time regardless of its position
+   *
+   * @param afterId id of the last template of the previous page, null for the first page
+   * @param limit   maximum number of templates
+   * @return future with the JSON text of the stored templates
+   */
+  Future<List<String>> getTemplateDocuments(String afterId, int limit);
+
   /**
    * Searches for template by id
    *
@@ -29,6 +52,30 @@ public interface TemplateDao {
    */
   Future<Optional<Template>> getTemplateById(String id);
 
+  /**
+   * Searches for templates by ids with one query
+   *
+   * @param ids template ids
+   * @return future with the found templates in no particular order
+   */
+  Future<List<Template>> getTemplatesByIds(List<String> ids);
+
+  /**
+   * Searches for template by id together with the digest of its stored document
+   *
+   * @param id template id
+   * @return future with optional stored template
+   */
+  Future<Optional<StoredTemplate>> getStoredTemplateById(String id);
+
+  /**
+   * Computes the digest of the stored template document without loading the template
+   *
+   * @param id template id
+   * @return future with optional digest, empty if the template does not exist
+   */
+  Future<Optional<String>> getTemplateDigest(String id);
+
   /**
    * Saves template to database
    *
@@ -37,13 +84,23 @@ public interface TemplateDao {
    */
   Future<String> addTemplate(Template template);
 
+  /**
+   * Creates or replaces templates in one transaction with batched multi-row upserts
+   *
+   * @param templates templates to save, with distinct ids
+   * @return future completed when all templates are saved
+   */
+  Future<Void> saveTemplates(List<Template> templates);
+
   /**
    * Updates template in database
    *
-   * @param template template to update
-   * @return future with true is succeeded
+   * @param template        template to update
+   * @param expectedDigests the template is updated only if the digest of its stored document is one of
+   *                        these, null to update unconditionally
+   * @return future with the digest of the updated document, empty if no template was updated
    */
-  Future<Boolean> updateTemplate(Template template);
+  Future<Optional<String>> updateTemplate(Template template, List<String> expectedDigests);
 
   /**
    * Deletes template from database
@@ -1,28 +1,74 @@
 package org.folio.template.dao;
 
+import static org.folio.rest.persist.PostgresClient.convertToPsqlStandard;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+
+import org.apache.commons.lang3.StringUtils;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.cql2pgjson.CQL2PgJSON;
 import org.folio.cql2pgjson.exception.FieldException;
+import org.folio.cql2pgjson.model.SqlSelect;
 import org.folio.rest.jaxrs.model.Template;
+import org.folio.rest.jaxrs.model.TemplatesCollection;
 import org.folio.rest.persist.Criteria.Limit;
 import org.folio.rest.persist.Criteria.Offset;
 import org.folio.rest.persist.PostgresClient;
 import org.folio.rest.persist.cql.CQLWrapper;
 import org.folio.rest.persist.interfaces.Results;
+import org.folio.template.util.ModuleConfig;
 
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.Tuple;
 
 public class TemplateDaoImpl implements TemplateDao {
 
   private static final Logger LOG = LogManager.getLogger("mod-template-engine");
   public static final String TEMPLATE_SCHEMA_PATH = "ramls/template.json";
   private static final String TEMPLATES_TABLE = "template";
+  private static final int UPSERT_BATCH_SIZE = 500;
+  public static final String EXACT_COUNT_LIMIT_SETTING = "TEMPLATES_EXACT_COUNT_LIMIT";
+  private static final long EXACT_COUNT_LIMIT = ModuleConfig.getLong(EXACT_COUNT_LIMIT_SETTING, 1000);
+
+  // The page and the total are read by one statement. The total is exact up to $3 matching templates,
+  // above that the planner estimate of the count query $4 is used, so large tenants never count the
+  // whole table. The join does not keep the order of the page, so each row carries its position, numbered
+  // with the ordering of the page itself.
+  private static final String PAGE_SQL = "SELECT page.jsonb, total.count FROM (%1$s) total"
+    + " LEFT JOIN (SELECT %2$s AS jsonb, row_number() OVER (%6$s) AS position"
+    + " FROM %3$s.%4$s %5$s %6$s LIMIT $1 OFFSET $2) page ON true"
+    + " ORDER BY page.position";
+  private static final String ESTIMATED_COUNT_SQL = "SELECT CASE WHEN capped.count <= $3::bigint"
+    + " THEN capped.count ELSE greatest(%1$s.template_count_estimate($4), $3::bigint + 1) END AS count"
+    + " FROM (SELECT count(*) AS count FROM (SELECT 1 FROM %1$s.%2$s %3$s LIMIT $3::bigint + 1) matching) capped";
+  private static final String EXACT_COUNT_SQL = "SELECT count(*) AS count FROM %s.%s %s";
+  private static final String COUNT_QUERY = "SELECT 1 FROM %s.%s %s";
+  private static final String GET_BY_IDS_SQL = "SELECT jsonb FROM %s.%s WHERE id = ANY($1)";
+  // both are served by the primary key index, whatever the position of the page
+  private static final String FIRST_DOCUMENTS_SQL = "SELECT jsonb::text AS document FROM %s.%s"
+    + " ORDER BY id LIMIT $1";
+  private static final String NEXT_DOCUMENTS_SQL = "SELECT jsonb::text AS document FROM %s.%s"
+    + " WHERE id > $1 ORDER BY id LIMIT $2";
+
+  // jsonb::text is the normalized form of the document, so the digest does not depend on key order
+  private static final String DIGEST = "md5(jsonb::text)";
+  private static final String GET_STORED_SQL = "SELECT jsonb, " + DIGEST + " AS digest FROM %s.%s WHERE id = $1";
+  private static final String GET_DIGEST_SQL = "SELECT " + DIGEST + " AS digest FROM %s.%s WHERE id = $1";
+  private static final String UPDATE_SQL = "UPDATE %s.%s SET jsonb = $2 WHERE id = $1"
+    + " RETURNING " + DIGEST + " AS digest";
+  private static final String UPDATE_IF_MATCH_SQL = "UPDATE %s.%s SET jsonb = $2"
+    + " WHERE id = $1 AND " + DIGEST + " = ANY($3)"
+    + " RETURNING " + DIGEST + " AS digest";
 
   private final PostgresClient pgClient;
 
@@ -41,7 +87,7 @@ public class TemplateDaoImpl implements TemplateDao {
     try {
       String[] fieldList = {"*"};
       CQLWrapper cql = getCQL(query, limit, offset);
-      pgClient.get(TEMPLATES_TABLE, Template.class, fieldList, cql, true, false, promise::handle);
+      pgClient.get(TEMPLATES_TABLE, Template.class, fieldList, cql, false, false, promise::handle);
     } catch (Exception e) {
       LOG.warn("Failed to retrieve templates from database with exception {}", e.getMessage());
       promise.fail(e);
@@ -50,6 +96,73 @@ public class TemplateDaoImpl implements TemplateDao {
     return promise.future().map(Results::getResults);
   }
 
+  @Override
+  public Future<TemplatesCollection> getTemplatesCollection(String query, int offset, int limit,
+    List<String> fields) {
+
+    LOG.debug("getTemplatesCollection:: Retrieving templates with total from database");
+    String sql;
+    Tuple params;
+    try {
+      String schemaName = schemaName();
+      String where = "";
+      String orderBy = "";
+      if (StringUtils.isNotBlank(query)) {
+        SqlSelect select = new CQL2PgJSON(TEMPLATES_TABLE + ".jsonb").toSql(query);
+        where = StringUtils.isBlank(select.getWhere()) ? "" : "WHERE " + select.getWhere();
+        orderBy = StringUtils.isBlank(select.getOrderBy()) ? "" : "ORDER BY " + select.getOrderBy();
+      }
+      if (EXACT_COUNT_LIMIT > 0) {
+        String countSql = String.format(ESTIMATED_COUNT_SQL, schemaName, TEMPLATES_TABLE, where);
+        sql = String.format(PAGE_SQL, countSql, projection(fields), schemaName, TEMPLATES_TABLE, where,
+          orderBy);
+        params = Tuple.of(limit, offset, EXACT_COUNT_LIMIT,
+          String.format(COUNT_QUERY, schemaName, TEMPLATES_TABLE, where));
+      } else {
+        String countSql = String.format(EXACT_COUNT_SQL, schemaName, TEMPLATES_TABLE, where);
+        sql = String.format(PAGE_SQL, countSql, projection(fields), schemaName, TEMPLATES_TABLE, where,
+          orderBy);
+        params = Tuple.of(limit, offset);
+      }
+    } catch (Exception e) {
+      LOG.warn("getTemplatesCollection:: Failed to build templates query: {}", e.getMessage());
+      return Future.failedFuture(e);
+    }
+    return pgClient.select(sql, params)
+      .map(rows -> {
+        List<Template> templates = new ArrayList<>(rows.size());
+        int totalRecords = 0;
+        for (Row row : rows) {
+          totalRecords = (int) Math.min(Integer.MAX_VALUE, row.getLong("count"));
+          JsonObject jsonb = row.getJsonObject("jsonb");
+          if (jsonb != null) {
+            templates.add(jsonb.mapTo(Template.class));
+          }
+        }
+        LOG.info("getTemplatesCollection:: Retrieved {} of {} templates from database", templates.size(),
+          totalRecords);
+        return new TemplatesCollection()
+          .withTemplates(templates)
+          .withTotalRecords(totalRecords);
+      });
+  }
+
+  @Override
+  public Future<List<String>> getTemplateDocuments(String afterId, int limit) {
+    LOG.debug("getTemplateDocuments:: Retrieving {} template documents after {}", limit, afterId);
+    Future<RowSet<Row>> rows = afterId == null
+      ? pgClient.select(String.format(FIRST_DOCUMENTS_SQL, schemaName(), TEMPLATES_TABLE), Tuple.of(limit))
+      : pgClient.select(String.format(NEXT_DOCUMENTS_SQL, schemaName(), TEMPLATES_TABLE),
+        Tuple.of(UUID.fromString(afterId), limit));
+    return rows.map(rowSet -> {
+      List<String> documents = new ArrayList<>(rowSet.size());
+      for (Row row : rowSet) {
+        documents.add(row.getString("document"));
+      }
+      return documents;
+    });
+  }
+
   @Override
   public Future<Optional<Template>> getTemplateById(String id) {
     LOG.debug("getTemplateById:: Retrieving template from database by Template ID: {}", id);
@@ -60,6 +173,38 @@ public class TemplateDaoImpl implements TemplateDao {
       });
   }
 
+  @Override
+  public Future<List<Template>> getTemplatesByIds(List<String> ids) {
+    LOG.debug("getTemplatesByIds:: Retrieving {} templates from database by Template IDs", ids.size());
+    UUID[] uuids = ids.stream().map(UUID::fromString).toArray(UUID[]::new);
+    return pgClient.select(String.format(GET_BY_IDS_SQL, schemaName(), TEMPLATES_TABLE), Tuple.of(uuids))
+      .map(rows -> {
+        List<Template> templates = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+          templates.add(row.getJsonObject("jsonb").mapTo(Template.class));
+        }
+        LOG.info("getTemplatesByIds:: Retrieved {} of {} templates from database", templates.size(), ids.size());
+        return templates;
+      });
+  }
+
+  @Override
+  public Future<Optional<StoredTemplate>> getStoredTemplateById(String id) {
+    LOG.debug("getStoredTemplateById:: Retrieving stored template from database by Template ID: {}", id);
+    String sql = String.format(GET_STORED_SQL, schemaName(), TEMPLATES_TABLE);
+    return pgClient.select(sql, Tuple.of(UUID.fromString(id)))
+      .map(rows -> firstRow(rows).map(row -> new StoredTemplate(
+        row.getJsonObject("jsonb").mapTo(Template.class), row.getString("digest"))));
+  }
+
+  @Override
+  public Future<Optional<String>> getTemplateDigest(String id) {
+    LOG.debug("getTemplateDigest:: Retrieving digest of template by Template ID: {}", id);
+    String sql = String.format(GET_DIGEST_SQL, schemaName(), TEMPLATES_TABLE);
+    return pgClient.select(sql, Tuple.of(UUID.fromString(id)))
+      .map(rows -> firstRow(rows).map(row -> row.getString("digest")));
+  }
+
   @Override
   public Future<String> addTemplate(Template template) {
     LOG.debug("addTemplate:: Adding template to database by Template ID: {}", template.getId());
@@ -69,13 +214,38 @@ public class TemplateDaoImpl implements TemplateDao {
   }
 
   @Override
-  public Future<Boolean> updateTemplate(Template template) {
+  public Future<Void> saveTemplates(List<Template> templates) {
+    LOG.debug("saveTemplates:: Saving {} templates to database", templates.size());
+    return pgClient.withTrans(conn -> {
+      Future<Void> future = Future.succeededFuture();
+      for (int from = 0; from < templates.size(); from += UPSERT_BATCH_SIZE) {
+        List<Template> batch = templates.subList(from, Math.min(templates.size(), from + UPSERT_BATCH_SIZE));
+        future = future.compose(v -> conn.upsertBatch(TEMPLATES_TABLE, batch).mapEmpty());
+      }
+      return future;
+    }).onSuccess(v -> LOG.info("saveTemplates:: Saved {} templates to database", templates.size()));
+  }
+
+  @Override
+  public Future<Optional<String>> updateTemplate(Template template, List<String> expectedDigests) {
     LOG.debug("updateTemplate:: Updating template in database by Template ID: {}", template.getId());
-    return pgClient.update(TEMPLATES_TABLE, template, template.getId())
-      .map(updateResult -> {
-        LOG.info("updateTemplate:: Updated template to database by Template ID: {}", template.getId());
-        return updateResult.rowCount() == 1;
-      });
+    JsonObject document;
+    try {
+      document = PostgresClient.pojo2JsonObject(template);
+    } catch (Exception e) {
+      LOG.warn("updateTemplate:: Failed to serialize template {}: {}", template.getId(), e.getMessage());
+      return Future.failedFuture(e);
+    }
+    UUID id = UUID.fromString(template.getId());
+    Future<RowSet<Row>> updated = expectedDigests == null
+      ? pgClient.execute(String.format(UPDATE_SQL, schemaName(), TEMPLATES_TABLE), Tuple.of(id, document))
+      : pgClient.execute(String.format(UPDATE_IF_MATCH_SQL, schemaName(), TEMPLATES_TABLE),
+        Tuple.of(id, document, expectedDigests.toArray(new String[0])));
+    return updated.map(rows -> {
+      Optional<String> digest = firstRow(rows).map(row -> row.getString("digest"));
+      LOG.info("updateTemplate:: Template with ID: {} updated: {}", template.getId(), digest.isPresent());
+      return digest;
+    });
   }
 
   @Override
@@ -88,6 +258,31 @@ public class TemplateDaoImpl implements TemplateDao {
       });
   }
 
+  /**
+   * Builds the selected jsonb, only the requested properties are read from the stored document,
+   * so the localized templates are neither sent by the database nor deserialized when not needed.
+   * The field names are validated against the template schema before they get here.
+   */
+  private static String projection(List<String> fields) {
+    if (fields == null || fields.isEmpty()) {
+      return "jsonb";
+    }
+    StringBuilder projection = new StringBuilder("jsonb_strip_nulls(jsonb_build_object(");
+    for (int i = 0; i < fields.size(); i++) {
+      projection.append(i == 0 ? "" : ", ")
+        .append(String.format("'%1$s', jsonb->'%1$s'", fields.get(i)));
+    }
+    return projection.append("))").toString();
+  }
+
+  private String schemaName() {
+    return convertToPsqlStandard(pgClient.getTenantId());
+  }
+
+  private static Optional<Row> firstRow(RowSet<Row> rows) {
+    return rows.iterator().hasNext() ? Optional.of(rows.iterator().next()) : Optional.empty();
+  }
+
   /**
    * Build CQL from request URL query
    *
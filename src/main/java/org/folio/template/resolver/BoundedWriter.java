@@ -0,0 +1,129 @@
+package org.folio.template.resolver;
+
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.template.RenderLimitExceededException;
+
+import io.vertx.core.Future;
+import io.vertx.serviceproxy.ServiceException;
+
+/**
+ * Collects rendered output and aborts the render with {@link RenderLimitExceededException} once the output
+ * grows over the size limit or the render thread spent more CPU time than allowed. One writer is used for
+ * all properties of a template, so the limits apply to the whole render. The CPU time is sampled every
+ * {@value #TIME_CHECK_INTERVAL} writes or context lookups, falling back to wall-clock time where thread CPU
+ * time is unavailable.
+ */
+class BoundedWriter extends Writer {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  private static final int TIME_CHECK_INTERVAL = 64;
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private final StringBuilder buffer = new StringBuilder();
+  private final long maxOutputSize;
+  private final long maxTimeNanos;
+  private final boolean cpuTimeSupported;
+  private final long startNanos;
+  private long outputSize;
+  private int operationsSinceTimeCheck;
+
+  BoundedWriter(long maxOutputSize, long maxTimeMillis) {
+    this.maxOutputSize = maxOutputSize;
+    this.maxTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxTimeMillis);
+    this.cpuTimeSupported = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+      && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+    this.startNanos = currentNanos();
+  }
+
+  @Override
+  public void write(char[] chars, int offset, int length) {
+    charge(length);
+    buffer.append(chars, offset, length);
+  }
+
+  @Override
+  public void write(String value, int offset, int length) {
+    charge(length);
+    buffer.append(value, offset, offset + length);
+  }
+
+  @Override
+  public void write(int c) {
+    charge(1);
+    buffer.append((char) c);
+  }
+
+  /**
+   * Counts a context lookup towards the time check, so a render that loops without writing output is bounded too
+   */
+  void checkpoint() {
+    if (++operationsSinceTimeCheck >= TIME_CHECK_INTERVAL) {
+      checkTime();
+    }
+  }
+
+  /**
+   * Returns the output written since the previous call, the limits keep counting across calls
+   */
+  String take() {
+    checkTime();
+    String output = buffer.toString();
+    buffer.setLength(0);
+    return output;
+  }
+
+  /**
+   * Converts a render failure to a failed future, exceeded limits are reported as a {@link ServiceException}
+   * with {@link RenderLimitExceededException#FAILURE_CODE} so they survive the event bus
+   */
+  static <T> Future<T> toFailure(Exception e) {
+    // template engines may wrap exceptions thrown by the writer
+    int limitIndex = ExceptionUtils.indexOfType(e, RenderLimitExceededException.class);
+    if (limitIndex >= 0) {
+      String message = ExceptionUtils.getThrowableList(e).get(limitIndex).getMessage();
+      LOG.warn("toFailure:: Render aborted: {}", message);
+      return Future.failedFuture(new ServiceException(RenderLimitExceededException.FAILURE_CODE, message));
+    }
+    LOG.warn("Failed to Process Template {}", e.getMessage());
+    return Future.failedFuture(e);
+  }
+
+  @Override
+  public void flush() {
+    // output is kept in memory
+  }
+
+  @Override
+  public void close() {
+    // output is kept in memory
+  }
+
+  private void charge(int length) {
+    outputSize += length;
+    if (maxOutputSize > 0 && outputSize > maxOutputSize) {
+      throw new RenderLimitExceededException(String.format(
+        "Rendered template exceeds the maximum output size of %d characters", maxOutputSize));
+    }
+    checkpoint();
+  }
+
+  private void checkTime() {
+    operationsSinceTimeCheck = 0;
+    if (maxTimeNanos > 0 && currentNanos() - startNanos > maxTimeNanos) {
+      throw new RenderLimitExceededException(String.format(
+        "Rendering the template took longer than %d ms", TimeUnit.NANOSECONDS.toMillis(maxTimeNanos)));
+    }
+  }
+
+  private long currentNanos() {
+    return cpuTimeSupported ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+  }
+}
@@ -0,0 +1,140 @@
+package org.folio.template.resolver;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.folio.template.util.RenderDateFormatter;
+
+/**
+ * Read-only view of a template context that formats dates when the template reads them instead of rewriting
+ * the whole context before rendering. A {@code *Date}, {@code *DateTime} or {@code *DetailedDateTime} value is
+ * formatted with the tenant locale when it is looked up, and a missing {@code *DateTime} value is derived from
+ * the {@code *Date} value next to it. Nested objects and arrays are wrapped on lookup. Every lookup is reported
+ * to a listener, so a render that loops over the context without writing output can still be bounded.
+ */
+final class DateFormattingContext extends AbstractMap<String, Object> {
+
+  private static final String SUFFIX_DATE = "Date";
+  private static final String SUFFIX_TIME = "Time";
+
+  private final Map<String, Object> context;
+  private final RenderDateFormatter formatter;
+  private final Runnable onLookup;
+
+  DateFormattingContext(Map<String, Object> context, RenderDateFormatter formatter) {
+    this(context, formatter, () -> {});
+  }
+
+  DateFormattingContext(Map<String, Object> context, RenderDateFormatter formatter, Runnable onLookup) {
+    this.context = context;
+    this.formatter = formatter;
+    this.onLookup = onLookup;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return context.containsKey(key) || getDateSource(key) != null;
+  }
+
+  @Override
+  public Object get(Object key) {
+    onLookup.run();
+    Object value = context.get(key);
+    if (value == null) {
+      String dateSource = getDateSource(key);
+      return dateSource == null ? null : formatter.format((String) key, dateSource);
+    }
+    return wrap((String) key, value);
+  }
+
+  /**
+   * Returns the {@code *Date} value a missing {@code *DateTime} key is derived from
+   */
+  private String getDateSource(Object key) {
+    if (key instanceof String name && name.endsWith(SUFFIX_DATE + SUFFIX_TIME) && !context.containsKey(name)
+      && context.get(name.substring(0, name.length() - SUFFIX_TIME.length())) instanceof String date
+      && isNotBlank(date)) {
+
+      return date;
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object wrap(String key, Object value) {
+    if (value instanceof String string) {
+      return formatter.format(key, string);
+    } else if (value instanceof Map<?, ?> map) {
+      return new DateFormattingContext((Map<String, Object>) map, formatter, onLookup);
+    } else if (value instanceof List<?> list) {
+      return new DateFormattingList(list, formatter, onLookup);
+    }
+    return value;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        Iterator<String> keys = context.keySet().iterator();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return keys.hasNext();
+          }
+
+          @Override
+          public Entry<String, Object> next() {
+            String key = keys.next();
+            return new SimpleImmutableEntry<>(key, get(key));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return context.size();
+      }
+    };
+  }
+
+  private static final class DateFormattingList extends AbstractList<Object> {
+
+    private final List<?> list;
+    private final RenderDateFormatter formatter;
+    private final Runnable onLookup;
+
+    private DateFormattingList(List<?> list, RenderDateFormatter formatter, Runnable onLookup) {
+      this.list = list;
+      this.formatter = formatter;
+      this.onLookup = onLookup;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object get(int index) {
+      onLookup.run();
+      // array elements have no name, only objects inside them contain dates
+      Object value = list.get(index);
+      if (value instanceof Map<?, ?> map) {
+        return new DateFormattingContext((Map<String, Object>) map, formatter, onLookup);
+      } else if (value instanceof List<?> nested) {
+        return new DateFormattingList(nested, formatter, onLookup);
+      }
+      return value;
+    }
+
+    @Override
+    public int size() {
+      return list.size();
+    }
+  }
+}
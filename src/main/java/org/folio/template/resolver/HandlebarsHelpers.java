@@ -0,0 +1,87 @@
+package org.folio.template.resolver;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import org.folio.template.util.ContextDateTimeFormatter;
+
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Helper;
+import com.github.jknack.handlebars.Options;
+import com.github.jknack.handlebars.helper.ConditionalHelpers;
+import com.ibm.icu.text.DecimalFormat;
+import com.ibm.icu.text.DecimalFormatSymbols;
+import com.ibm.icu.text.NumberFormat;
+
+/**
+ * Helpers available to Handlebars templates. Locale sensitive helpers read the tenant locale from the
+ * {@value #LANGUAGE_TAG} and {@value #TIME_ZONE_ID} data of the render.
+ * <ul>
+ *   <li>{@code {{formatDate loan.dueDate}}} formats an ISO date as a short date, the optional second
+ *   argument is {@code "dateTime"} or {@code "detailedDateTime"}</li>
+ *   <li>{@code {{addDays loan.dueDate 7}}} moves an ISO date by a number of days</li>
+ *   <li>{@code {{formatNumber feeCharge.amount "#,##0.00"}}} formats a number, the pattern is optional</li>
+ *   <li>{@code eq}, {@code neq}, {@code gt}, {@code gte}, {@code lt}, {@code lte}, {@code and},
+ *   {@code or} and {@code not} for conditionals</li>
+ * </ul>
+ */
+final class HandlebarsHelpers {
+
+  static final String LANGUAGE_TAG = "languageTag";
+  static final String TIME_ZONE_ID = "timeZoneId";
+
+  private static final String DEFAULT_DATE_STYLE = "date";
+
+  private HandlebarsHelpers() {
+  }
+
+  static Handlebars register(Handlebars handlebars) {
+    return handlebars
+      .registerHelpers(ConditionalHelpers.class)
+      .registerHelper("formatDate", (Helper<Object>) HandlebarsHelpers::formatDate)
+      .registerHelper("addDays", (Helper<Object>) HandlebarsHelpers::addDays)
+      .registerHelper("formatNumber", (Helper<Object>) HandlebarsHelpers::formatNumber);
+  }
+
+  private static Object formatDate(Object value, Options options) {
+    if (value == null) {
+      return "";
+    }
+    String style = options.param(0, DEFAULT_DATE_STYLE);
+    return ContextDateTimeFormatter.formatDate(style, value.toString(),
+        options.data(LANGUAGE_TAG), options.data(TIME_ZONE_ID))
+      .orElse(value.toString());
+  }
+
+  private static Object addDays(Object value, Options options) {
+    if (value == null) {
+      return "";
+    }
+    long days = new BigDecimal(options.param(0, 0).toString()).longValue();
+    return ContextDateTimeFormatter.parseDateTime(value.toString())
+      .map(dateTime -> dateTime.plusDays(days))
+      .map(ZonedDateTime::toOffsetDateTime)
+      .map(DateTimeFormatter.ISO_OFFSET_DATE_TIME::format)
+      .orElse(value.toString());
+  }
+
+  private static Object formatNumber(Object value, Options options) {
+    if (value == null) {
+      return "";
+    }
+    BigDecimal number;
+    try {
+      number = new BigDecimal(value.toString());
+    } catch (NumberFormatException e) {
+      return value.toString();
+    }
+    Locale locale = Locale.forLanguageTag(options.data(LANGUAGE_TAG));
+    String pattern = options.param(0, null);
+    NumberFormat numberFormat = pattern == null
+      ? NumberFormat.getInstance(locale)
+      : new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(locale));
+    return numberFormat.format(number);
+  }
+}
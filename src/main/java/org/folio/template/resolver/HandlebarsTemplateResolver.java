@@ -0,0 +1,149 @@
+package org.folio.template.resolver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.template.util.JsonValues;
+import org.folio.template.util.ModuleConfig;
+import org.folio.template.util.TemplateContextPreProcessor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.HandlebarsException;
+import com.github.jknack.handlebars.Template;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Template resolver backed by Handlebars. Unlike Mustache templates, the context is not enriched with
+ * formatted dates before rendering, templates format the dates they use with {@link HandlebarsHelpers}.
+ * Barcode image values are rendered unescaped, like with Mustache templates, so the generated image HTML is
+ * rendered as is; image values supplied with the context are escaped by {@link TemplateContextPreProcessor}.
+ */
+public class HandlebarsTemplateResolver implements TemplateResolver {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String NAME = "handlebars";
+
+  private final Handlebars handlebars;
+  private final long maxTimeMillis;
+  private final long maxOutputSize;
+  // compiled templates are immutable and safe to share, keyed by the template source
+  private final Cache<String, Template> compiledTemplates;
+
+  public HandlebarsTemplateResolver() {
+    this(ModuleConfig.getLong(MustacheTemplateResolver.MAX_TIME_SETTING, MustacheTemplateResolver.DEFAULT_MAX_TIME_MS),
+      ModuleConfig.getLong(MustacheTemplateResolver.MAX_OUTPUT_SIZE_SETTING,
+        MustacheTemplateResolver.DEFAULT_MAX_OUTPUT_SIZE));
+  }
+
+  HandlebarsTemplateResolver(long maxTimeMillis, long maxOutputSize) {
+    this.handlebars = HandlebarsHelpers.register(new Handlebars());
+    this.maxTimeMillis = maxTimeMillis;
+    this.maxOutputSize = maxOutputSize;
+    this.compiledTemplates = Caffeine.newBuilder()
+      .maximumSize(ModuleConfig.getLong(MustacheTemplateResolver.COMPILED_CACHE_SIZE_SETTING,
+        MustacheTemplateResolver.DEFAULT_COMPILED_CACHE_SIZE))
+      .build();
+  }
+
+  @Override
+  public Future<JsonObject> processTemplate(JsonObject templateContent, JsonObject context, String outputFormat,
+    String languageTag, String timeZoneId) {
+
+    LOG.debug("processTemplate:: Processing Handlebars template");
+    JsonObject result = new JsonObject();
+    BoundedWriter writer = new BoundedWriter(maxOutputSize, maxTimeMillis);
+    Context handlebarsContext = Context.newBuilder(markBarcodeImages(JsonValues.toPlainMap(context), "")).build()
+      .data(HandlebarsHelpers.LANGUAGE_TAG, languageTag)
+      .data(HandlebarsHelpers.TIME_ZONE_ID, timeZoneId);
+    try {
+      for (Map.Entry<String, Object> property : templateContent) {
+        if (property.getValue() instanceof String source) {
+          compile(source).apply(handlebarsContext, writer);
+          result.put(property.getKey(), writer.take());
+        }
+      }
+      return Future.succeededFuture(result);
+    } catch (Exception e) {
+      return BoundedWriter.toFailure(e);
+    } finally {
+      handlebarsContext.destroy();
+    }
+  }
+
+  @Override
+  public Future<Void> precompile(JsonObject templateContent) {
+    LOG.debug("precompile:: Compiling Handlebars template");
+    try {
+      for (Map.Entry<String, Object> property : templateContent) {
+        if (property.getValue() instanceof String source) {
+          compile(source);
+        }
+      }
+      return Future.succeededFuture();
+    } catch (Exception e) {
+      LOG.warn("precompile:: Failed to compile template: {}", e.getMessage());
+      return Future.failedFuture(e);
+    }
+  }
+
+  private Template compile(String source) {
+    return compiledTemplates.get(source, s -> {
+      try {
+        return handlebars.compileInline(s);
+      } catch (IOException e) {
+        throw new HandlebarsException("Failed to compile template", e);
+      }
+    });
+  }
+
+  /**
+   * Wraps the barcode image values of the context in {@link Handlebars.SafeString}, so Handlebars does not
+   * escape them. Containers are copied only when they hold such a value, the context is not modified.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> T markBarcodeImages(T value, String fullPath) {
+    if (value instanceof CharSequence text && !fullPath.isEmpty()
+      && TemplateContextPreProcessor.isBarcodeImageToken(fullPath)) {
+      return (T) new Handlebars.SafeString(text);
+    }
+    if (value instanceof Map<?, ?> map) {
+      Map<Object, Object> copy = null;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        String key = String.valueOf(entry.getKey());
+        Object marked = markBarcodeImages(entry.getValue(), fullPath.isEmpty() ? key : fullPath + "." + key);
+        if (marked != entry.getValue()) {
+          if (copy == null) {
+            copy = new LinkedHashMap<>(map);
+          }
+          copy.put(entry.getKey(), marked);
+        }
+      }
+      return copy != null ? (T) copy : value;
+    }
+    if (value instanceof List<?> list) {
+      List<Object> copy = null;
+      for (int i = 0; i < list.size(); i++) {
+        Object marked = markBarcodeImages(list.get(i), fullPath + "[" + i + "]");
+        if (marked != list.get(i)) {
+          if (copy == null) {
+            copy = new ArrayList<>(list);
+          }
+          copy.set(i, marked);
+        }
+      }
+      return copy != null ? (T) copy : value;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,30 @@
+package org.folio.template.resolver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Template resolvers registered in this JVM. Calling a local resolver directly avoids the event bus proxy,
+ * which copies the whole template context on every call.
+ */
+public final class LocalTemplateResolvers {
+
+  private static final Map<String, TemplateResolver> RESOLVERS = new ConcurrentHashMap<>();
+
+  private LocalTemplateResolvers() {
+  }
+
+  public static void register(String address, TemplateResolver resolver) {
+    RESOLVERS.put(address, resolver);
+  }
+
+  /**
+   * Returns the resolver registered at the address in this JVM, or an event bus proxy if there is none
+   */
+  public static TemplateResolver get(Vertx vertx, String address) {
+    TemplateResolver resolver = RESOLVERS.get(address);
+    return resolver != null ? resolver : TemplateResolver.createProxy(vertx, address);
+  }
+}
@@ -1,56 +1,125 @@
 package org.folio.template.resolver;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.DefaultMustacheVisitor;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheFactory;
+import com.github.mustachejava.MustacheVisitor;
+import com.github.mustachejava.TemplateContext;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.folio.rest.jaxrs.model.Context;
+import org.folio.template.util.JsonValues;
+import org.folio.template.util.ModuleConfig;
+import org.folio.template.util.RenderDateFormatter;
+import org.folio.template.util.TemplateContextPreProcessor;
 
 import java.io.StringReader;
-import java.io.StringWriter;
 import java.util.Map;
-import java.util.Optional;
 
 public class MustacheTemplateResolver implements TemplateResolver {
 
   private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String MAX_TIME_SETTING = "RENDER_MAX_TIME_MS";
+  public static final String MAX_OUTPUT_SIZE_SETTING = "RENDER_MAX_OUTPUT_SIZE";
+  // renders run on the event loop, the budget stays well below the blocked thread warning of 2 s
+  static final long DEFAULT_MAX_TIME_MS = 500;
+  static final long DEFAULT_MAX_OUTPUT_SIZE = 10_000_000;
+  public static final String COMPILED_CACHE_SIZE_SETTING = "COMPILED_TEMPLATE_CACHE_SIZE";
+  public static final long DEFAULT_COMPILED_CACHE_SIZE = 1000;
+
   private final MustacheFactory mustacheFactory;
+  private final long maxTimeMillis;
+  private final long maxOutputSize;
+  // compiled templates are immutable and safe to share, keyed by the template source
+  private final Cache<String, Mustache> compiledTemplates;
 
   public MustacheTemplateResolver() {
-    mustacheFactory = new DefaultMustacheFactory();
+    this(ModuleConfig.getLong(MAX_TIME_SETTING, DEFAULT_MAX_TIME_MS),
+      ModuleConfig.getLong(MAX_OUTPUT_SIZE_SETTING, DEFAULT_MAX_OUTPUT_SIZE));
+  }
+
+  MustacheTemplateResolver(long maxTimeMillis, long maxOutputSize) {
+    mustacheFactory = new BarcodeImageMustacheFactory();
+    this.maxTimeMillis = maxTimeMillis;
+    this.maxOutputSize = maxOutputSize;
+    this.compiledTemplates = Caffeine.newBuilder()
+      .maximumSize(ModuleConfig.getLong(COMPILED_CACHE_SIZE_SETTING, DEFAULT_COMPILED_CACHE_SIZE))
+      .build();
   }
 
   @Override
-  public Future<JsonObject> processTemplate(JsonObject templateContent, JsonObject context, String outputFormat) {
+  public Future<JsonObject> processTemplate(JsonObject templateContent, JsonObject context, String outputFormat,
+    String languageTag, String timeZoneId) {
+
     LOG.debug("processTemplate:: Processing Template");
     JsonObject result = new JsonObject();
+    BoundedWriter writer = new BoundedWriter(maxOutputSize, maxTimeMillis);
     try {
+      Map<String, Object> contextMap = new DateFormattingContext(JsonValues.toPlainMap(context),
+        new RenderDateFormatter(languageTag, timeZoneId), writer::checkpoint);
       for (Map.Entry<String, Object> property : templateContent) {
         if (property.getValue() instanceof String) {
-          String processedPropertyValue = processTemplateProperty(property.getValue().toString(), context);
+          String processedPropertyValue = processTemplateProperty(property.getValue().toString(), contextMap, writer);
           result.put(property.getKey(), processedPropertyValue);
         }
       }
       return Future.succeededFuture(result);
     } catch (Exception e) {
-      LOG.warn("Failed to Process Template {}", e.getMessage());
+      return BoundedWriter.toFailure(e);
+    }
+  }
+
+  @Override
+  public Future<Void> precompile(JsonObject templateContent) {
+    LOG.debug("precompile:: Compiling Mustache template");
+    try {
+      for (Map.Entry<String, Object> property : templateContent) {
+        if (property.getValue() instanceof String source) {
+          compile(source);
+        }
+      }
+      return Future.succeededFuture();
+    } catch (Exception e) {
+      LOG.warn("precompile:: Failed to compile template: {}", e.getMessage());
       return Future.failedFuture(e);
     }
   }
 
-  private String processTemplateProperty(String templateProperty, JsonObject context) {
+  private Mustache compile(String source) {
+    return compiledTemplates.get(source, s -> mustacheFactory.compile(new StringReader(s), null));
+  }
+
+  private String processTemplateProperty(String templateProperty, Map<String, Object> contextMap,
+    BoundedWriter writer) {
+
     LOG.debug("processTemplateProperty:: Processing template property");
-    Mustache mustache = mustacheFactory.compile(new StringReader(templateProperty), null);
-    StringWriter writer = new StringWriter();
-    Map<String, Object> contextMap = Optional.of(context)
-      .map(jsonObject -> jsonObject.mapTo(Context.class))
-      .map(Context::getAdditionalProperties)
-      .orElse(null);
+    Mustache mustache = compile(templateProperty);
     mustache.execute(writer, contextMap);
     LOG.info("processTemplateProperty:: Processed template property");
-    return writer.toString();
+    return writer.take();
+  }
+
+  /**
+   * Compiles barcode image variables as unescaped, as if they were written in triple curly braces, so the
+   * generated image HTML is rendered as is and the template source does not have to be rewritten. Image
+   * values supplied with the context are escaped by {@link TemplateContextPreProcessor} beforehand.
+   */
+  private static class BarcodeImageMustacheFactory extends DefaultMustacheFactory {
+
+    @Override
+    public MustacheVisitor createMustacheVisitor() {
+      return new DefaultMustacheVisitor(this) {
+        @Override
+        public void value(TemplateContext templateContext, String variable, boolean encoded) {
+          super.value(templateContext, variable,
+            encoded && !TemplateContextPreProcessor.isBarcodeImageToken(variable));
+        }
+      };
+    }
   }
 }
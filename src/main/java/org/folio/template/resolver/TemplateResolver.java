@@ -21,7 +21,18 @@ public interface TemplateResolver {
    * @param templateContent templateContent
    * @param context         context
    * @param outputFormat    output format
+   * @param languageTag     tenant language tag used by locale sensitive helpers
+   * @param timeZoneId      tenant time zone used by date helpers
    * @return Future containing the processed template as JsonObject
    */
-  Future<JsonObject> processTemplate(JsonObject templateContent, JsonObject context, String outputFormat);
+  Future<JsonObject> processTemplate(JsonObject templateContent, JsonObject context, String outputFormat,
+    String languageTag, String timeZoneId);
+
+  /**
+   * Compiles the template properties into the compiled template cache of the resolver without rendering them
+   *
+   * @param templateContent templateContent
+   * @return Future completed once the template is compiled
+   */
+  Future<Void> precompile(JsonObject templateContent);
 }
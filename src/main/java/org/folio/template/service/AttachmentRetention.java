@@ -0,0 +1,72 @@
+package org.folio.template.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.template.dao.AttachmentDao;
+import org.folio.template.util.ModuleConfig;
+
+/**
+ * Removes attachment contents that were not stored again within the retention, so the content-addressed
+ * attachment store does not grow without bound. Each module instance purges the store of a tenant at most
+ * once per purge interval, triggered by storing attachments of that tenant. A retention of 0 keeps
+ * contents forever.
+ */
+public class AttachmentRetention {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String RETENTION_DAYS_SETTING = "ATTACHMENT_RETENTION_DAYS";
+  private static final int DEFAULT_RETENTION_DAYS = 30;
+  private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private static final AttachmentRetention INSTANCE = new AttachmentRetention(
+    ModuleConfig.getInt(RETENTION_DAYS_SETTING, DEFAULT_RETENTION_DAYS), System::currentTimeMillis);
+
+  private final int retentionDays;
+  private final LongSupplier clock;
+  private final Map<String, Long> purgeStarts = new ConcurrentHashMap<>();
+
+  AttachmentRetention(int retentionDays, LongSupplier clock) {
+    this.retentionDays = retentionDays;
+    this.clock = clock;
+  }
+
+  public static AttachmentRetention getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Purges the expired attachment contents of the tenant in the background, unless a purge of the tenant
+   * started less than the purge interval ago
+   *
+   * @param tenantId      tenant whose attachment store is purged
+   * @param attachmentDao attachment store of the tenant
+   */
+  public void purgeIfDue(String tenantId, AttachmentDao attachmentDao) {
+    if (retentionDays <= 0 || !tryStartPurge(tenantId, clock.getAsLong())) {
+      return;
+    }
+    attachmentDao.purgeContents(retentionDays)
+      .onSuccess(count -> LOG.info("purgeIfDue:: Deleted {} attachment contents older than {} days of tenant {}",
+        count, retentionDays, tenantId))
+      .onFailure(e -> LOG.warn("purgeIfDue:: Failed to delete expired attachment contents of tenant {}: {}",
+        tenantId, e.getMessage()));
+  }
+
+  private boolean tryStartPurge(String tenantId, long now) {
+    boolean[] started = {false};
+    purgeStarts.compute(tenantId, (tenant, previous) -> {
+      if (previous != null && now - previous < PURGE_INTERVAL_MILLIS) {
+        return previous;
+      }
+      started[0] = true;
+      return now;
+    });
+    return started[0];
+  }
+}
@@ -0,0 +1,255 @@
+package org.folio.template.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.template.RenderCapacityExceededException;
+import org.folio.template.util.ModuleConfig;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+/**
+ * Bounds the number of concurrently executing render tasks globally and per tenant. The global limit is
+ * the render capacity shared by all tenants; the per-tenant limit is a bulkhead, so one tenant cannot
+ * occupy the whole capacity. Tasks that cannot start immediately wait in per-tenant queues, and freed
+ * capacity is handed out by smooth weighted round-robin across the tenants with waiting tasks, so a
+ * tenant's burst only delays its own tasks. When a queue is full the task is rejected with
+ * {@link RenderCapacityExceededException}: 429 when the tenant exhausted its own share, 503 when the
+ * whole lane is saturated.
+ * <p>
+ * Template requests and template previews are admitted through separate lanes, so interactive previews
+ * never wait behind batch notice runs.
+ */
+public class RenderAdmissionController {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+  private static final int SC_SERVICE_UNAVAILABLE = 503;
+
+  public static final String RETRY_AFTER_SETTING = "RENDER_RETRY_AFTER_SECONDS";
+  public static final String TENANT_WEIGHTS_SETTING = "RENDER_TENANT_WEIGHTS";
+  private static final int DEFAULT_TENANT_WEIGHT = 1;
+
+  private static final RenderAdmissionController RENDER_LANE = fromSettings("RENDER", 20, 10, 200, 100);
+  private static final RenderAdmissionController PREVIEW_LANE = fromSettings("PREVIEW", 8, 4, 16, 8);
+
+  private final String lane;
+  private final int maxConcurrency;
+  private final int maxConcurrencyPerTenant;
+  private final int maxQueueSize;
+  private final int maxQueueSizePerTenant;
+  private final long retryAfterSeconds;
+  private final Map<String, Integer> tenantWeights;
+
+  private final Map<String, Integer> runningByTenant = new HashMap<>();
+  private final Map<String, Deque<PendingTask>> queues = new LinkedHashMap<>();
+  private final Map<String, Integer> currentWeights = new HashMap<>();
+  private int running;
+  private int queued;
+
+  private record PendingTask(String tenantId, Runnable start, Context context) {}
+
+  RenderAdmissionController(String lane, int maxConcurrency, int maxConcurrencyPerTenant,
+    int maxQueueSize, int maxQueueSizePerTenant, long retryAfterSeconds, Map<String, Integer> tenantWeights) {
+
+    this.lane = lane;
+    this.maxConcurrency = maxConcurrency;
+    this.maxConcurrencyPerTenant = maxConcurrencyPerTenant;
+    this.maxQueueSize = maxQueueSize;
+    this.maxQueueSizePerTenant = maxQueueSizePerTenant;
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.tenantWeights = Map.copyOf(tenantWeights);
+  }
+
+  /**
+   * Lane for {@code POST /template-request}
+   */
+  public static RenderAdmissionController forRenders() {
+    return RENDER_LANE;
+  }
+
+  /**
+   * Lane for {@code POST /template-request/preview}
+   */
+  public static RenderAdmissionController forPreviews() {
+    return PREVIEW_LANE;
+  }
+
+  /**
+   * Runs the task as soon as the tenant and the lane have free capacity
+   *
+   * @param tenantId tenant the task is executed for
+   * @param task     render task
+   * @return future completed with the result of the task, or failed if the task was rejected
+   */
+  public <T> Future<T> submit(String tenantId, Supplier<Future<T>> task) {
+    Promise<T> promise = Promise.promise();
+    Runnable start = () -> execute(tenantId, task, promise);
+
+    synchronized (this) {
+      if (hasCapacity(tenantId)) {
+        acquire(tenantId);
+      } else if (queueSize(tenantId) >= maxQueueSizePerTenant) {
+        LOG.warn("submit:: {} queue of tenant {} is full, rejecting request", lane, tenantId);
+        return Future.failedFuture(new RenderCapacityExceededException(String.format(
+          "Too many concurrent requests for tenant %s, retry later", tenantId),
+          SC_TOO_MANY_REQUESTS, retryAfterSeconds));
+      } else if (queued >= maxQueueSize) {
+        LOG.warn("submit:: {} queue is full, rejecting request of tenant {}", lane, tenantId);
+        return Future.failedFuture(new RenderCapacityExceededException(
+          "Template engine is overloaded, retry later", SC_SERVICE_UNAVAILABLE, retryAfterSeconds));
+      } else {
+        LOG.debug("submit:: Queueing {} task of tenant {}", lane, tenantId);
+        queues.computeIfAbsent(tenantId, tenant -> new ArrayDeque<>())
+          .addLast(new PendingTask(tenantId, start, Vertx.currentContext()));
+        queued++;
+        return promise.future();
+      }
+    }
+
+    start.run();
+    return promise.future();
+  }
+
+  private <T> void execute(String tenantId, Supplier<Future<T>> task, Promise<T> promise) {
+    Future<T> result;
+    try {
+      result = task.get();
+    } catch (Exception e) {
+      result = Future.failedFuture(e);
+    }
+    result.onComplete(ar -> {
+      release(tenantId);
+      promise.handle(ar);
+    });
+  }
+
+  private void release(String tenantId) {
+    PendingTask next;
+    synchronized (this) {
+      running--;
+      runningByTenant.computeIfPresent(tenantId, (tenant, count) -> count > 1 ? count - 1 : null);
+      next = pollNext();
+      if (next != null) {
+        acquire(next.tenantId());
+      }
+    }
+    if (next != null) {
+      start(next);
+    }
+  }
+
+  /**
+   * Picks the tenant to run next by smooth weighted round-robin over the tenants that have waiting tasks
+   * and free capacity, and takes that tenant's oldest task
+   */
+  private PendingTask pollNext() {
+    if (running >= maxConcurrency) {
+      return null;
+    }
+    String selected = null;
+    int totalWeight = 0;
+    for (String tenantId : queues.keySet()) {
+      if (!hasCapacity(tenantId)) {
+        continue;
+      }
+      int weight = getWeight(tenantId);
+      totalWeight += weight;
+      int currentWeight = currentWeights.merge(tenantId, weight, Integer::sum);
+      if (selected == null || currentWeight > currentWeights.get(selected)) {
+        selected = tenantId;
+      }
+    }
+    if (selected == null) {
+      return null;
+    }
+    currentWeights.merge(selected, -totalWeight, Integer::sum);
+
+    Deque<PendingTask> tenantQueue = queues.get(selected);
+    PendingTask task = tenantQueue.pollFirst();
+    if (tenantQueue.isEmpty()) {
+      queues.remove(selected);
+      currentWeights.remove(selected);
+    }
+    queued--;
+    return task;
+  }
+
+  private static void start(PendingTask task) {
+    if (task.context() != null) {
+      task.context().runOnContext(v -> task.start().run());
+    } else {
+      task.start().run();
+    }
+  }
+
+  private boolean hasCapacity(String tenantId) {
+    return running < maxConcurrency && runningByTenant.getOrDefault(tenantId, 0) < maxConcurrencyPerTenant;
+  }
+
+  private int queueSize(String tenantId) {
+    Deque<PendingTask> tenantQueue = queues.get(tenantId);
+    return tenantQueue == null ? 0 : tenantQueue.size();
+  }
+
+  private int getWeight(String tenantId) {
+    return tenantWeights.getOrDefault(tenantId, DEFAULT_TENANT_WEIGHT);
+  }
+
+  private void acquire(String tenantId) {
+    running++;
+    runningByTenant.merge(tenantId, 1, Integer::sum);
+  }
+
+  synchronized int getRunning() {
+    return running;
+  }
+
+  synchronized int getQueued() {
+    return queued;
+  }
+
+  private static RenderAdmissionController fromSettings(String lane, int maxConcurrency,
+    int maxConcurrencyPerTenant, int maxQueueSize, int maxQueueSizePerTenant) {
+
+    return new RenderAdmissionController(lane.toLowerCase(),
+      ModuleConfig.getInt(lane + "_MAX_CONCURRENCY", maxConcurrency),
+      ModuleConfig.getInt(lane + "_MAX_CONCURRENCY_PER_TENANT", maxConcurrencyPerTenant),
+      ModuleConfig.getInt(lane + "_MAX_QUEUE_SIZE", maxQueueSize),
+      ModuleConfig.getInt(lane + "_MAX_QUEUE_SIZE_PER_TENANT", maxQueueSizePerTenant),
+      ModuleConfig.getLong(RETRY_AFTER_SETTING, 1),
+      parseTenantWeights(ModuleConfig.getString(TENANT_WEIGHTS_SETTING, "")));
+  }
+
+  /**
+   * Parses tenant weights in the {@code tenant1:3,tenant2:2} format, tenants not listed have weight 1
+   */
+  static Map<String, Integer> parseTenantWeights(String value) {
+    Map<String, Integer> weights = new HashMap<>();
+    for (String entry : value.split(",")) {
+      String[] parts = entry.trim().split(":");
+      if (parts.length != 2) {
+        continue;
+      }
+      try {
+        int weight = Integer.parseInt(parts[1].trim());
+        if (weight > 0) {
+          weights.put(parts[0].trim(), weight);
+        }
+      } catch (NumberFormatException e) {
+        LOG.warn("parseTenantWeights:: Invalid weight in '{}', ignoring it", entry);
+      }
+    }
+    return weights;
+  }
+}
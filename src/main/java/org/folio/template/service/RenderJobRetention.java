@@ -0,0 +1,72 @@
+package org.folio.template.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.template.dao.RenderJobDao;
+import org.folio.template.util.ModuleConfig;
+
+/**
+ * Removes render jobs, with their rendered items, once they were completed longer than the retention ago,
+ * so the job tables do not grow without bound. Each module instance purges the jobs of a tenant at most once
+ * per purge interval, triggered by the scan for abandoned jobs and by job submissions. A retention of 0 keeps
+ * jobs forever.
+ */
+public class RenderJobRetention {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String RETENTION_DAYS_SETTING = "RENDER_JOB_RETENTION_DAYS";
+  private static final int DEFAULT_RETENTION_DAYS = 7;
+  private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private static final RenderJobRetention INSTANCE = new RenderJobRetention(
+    ModuleConfig.getInt(RETENTION_DAYS_SETTING, DEFAULT_RETENTION_DAYS), System::currentTimeMillis);
+
+  private final int retentionDays;
+  private final LongSupplier clock;
+  private final Map<String, Long> purgeStarts = new ConcurrentHashMap<>();
+
+  RenderJobRetention(int retentionDays, LongSupplier clock) {
+    this.retentionDays = retentionDays;
+    this.clock = clock;
+  }
+
+  public static RenderJobRetention getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Purges the expired render jobs of the tenant in the background, unless a purge of the tenant started
+   * less than the purge interval ago
+   *
+   * @param tenantId tenant whose render jobs are purged
+   * @param jobDao   render jobs of the tenant
+   */
+  public void purgeIfDue(String tenantId, RenderJobDao jobDao) {
+    if (retentionDays <= 0 || !tryStartPurge(tenantId, clock.getAsLong())) {
+      return;
+    }
+    jobDao.purgeJobs(retentionDays)
+      .onSuccess(count -> LOG.info("purgeIfDue:: Deleted {} render jobs completed more than {} days ago"
+        + " of tenant {}", count, retentionDays, tenantId))
+      .onFailure(e -> LOG.warn("purgeIfDue:: Failed to delete expired render jobs of tenant {}: {}",
+        tenantId, e.getMessage()));
+  }
+
+  private boolean tryStartPurge(String tenantId, long now) {
+    boolean[] started = {false};
+    purgeStarts.compute(tenantId, (tenant, previous) -> {
+      if (previous != null && now - previous < PURGE_INTERVAL_MILLIS) {
+        return previous;
+      }
+      started[0] = true;
+      return now;
+    });
+    return started[0];
+  }
+}
@@ -0,0 +1,39 @@
+package org.folio.template.service;
+
+import org.folio.rest.jaxrs.model.RenderJob;
+import org.folio.rest.jaxrs.model.RenderJobRequest;
+import org.folio.rest.jaxrs.model.RenderJobResults;
+
+import io.vertx.core.Future;
+
+/**
+ * Asynchronous render job service
+ */
+public interface RenderJobService {
+
+  /**
+   * Saves a job rendering a template against many contexts and schedules its processing
+   *
+   * @param jobRequest render job request
+   * @return future with the saved job
+   */
+  Future<RenderJob> submitJob(RenderJobRequest jobRequest);
+
+  /**
+   * Gets job status, resuming the job if its worker stopped
+   *
+   * @param id job id
+   * @return future with the job, failed with NotFoundException if there is no such job
+   */
+  Future<RenderJob> getJob(String id);
+
+  /**
+   * Gets rendered results of a job in submission order
+   *
+   * @param id     job id
+   * @param offset offset
+   * @param limit  limit
+   * @return future with page of results, failed with NotFoundException if there is no such job
+   */
+  Future<RenderJobResults> getJobResults(String id, int offset, int limit);
+}
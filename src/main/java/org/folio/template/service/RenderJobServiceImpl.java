@@ -0,0 +1,156 @@
+package org.folio.template.service;
+
+import static org.folio.okapi.common.XOkapiHeaders.TENANT;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.NotFoundException;
+
+import org.apache.commons.collections4.map.CaseInsensitiveMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.Context;
+import org.folio.rest.jaxrs.model.RenderJob;
+import org.folio.rest.jaxrs.model.RenderJobItem;
+import org.folio.rest.jaxrs.model.RenderJobRequest;
+import org.folio.rest.jaxrs.model.RenderJobResults;
+import org.folio.rest.jaxrs.model.Template;
+import org.folio.rest.jaxrs.model.TemplateProcessingRequest;
+import org.folio.template.client.LocaleSettings;
+import org.folio.template.client.SettingsClient;
+import org.folio.template.dao.RenderJobDao;
+import org.folio.template.dao.RenderJobDaoImpl;
+import org.folio.template.dao.TemplateDaoImpl;
+import org.folio.template.util.ContextLimits;
+import org.folio.template.util.ModuleConfig;
+import org.folio.template.util.SharedAttachments;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+public class RenderJobServiceImpl implements RenderJobService {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String MAX_ITEMS_SETTING = "RENDER_JOB_MAX_ITEMS";
+  private static final int MAX_ITEMS = ModuleConfig.getInt(MAX_ITEMS_SETTING, 500_000);
+
+  private final Vertx vertx;
+  private final String tenantId;
+  private final RenderJobDao jobDao;
+  private final TemplateDaoImpl templateDao;
+  private final SettingsClient settingsClient;
+
+  public RenderJobServiceImpl(Vertx vertx, Map<String, String> okapiHeaders) {
+    this.vertx = vertx;
+    this.tenantId = new CaseInsensitiveMap<>(okapiHeaders).get(TENANT);
+    this.jobDao = new RenderJobDaoImpl(vertx, tenantId);
+    this.templateDao = new TemplateDaoImpl(vertx, tenantId);
+    this.settingsClient = new SettingsClient(vertx, okapiHeaders);
+  }
+
+  @Override
+  public Future<RenderJob> submitJob(RenderJobRequest jobRequest) {
+    LOG.debug("submitJob:: Submitting render job for Template with ID : {}", jobRequest.getTemplateId());
+    List<Context> contexts = jobRequest.getContexts();
+    if (contexts.size() > MAX_ITEMS) {
+      return Future.failedFuture(new BadRequestException(String.format(
+        "Render job contains %d contexts, the maximum is %d", contexts.size(), MAX_ITEMS)));
+    }
+    try {
+      contexts.forEach(context -> ContextLimits.getInstance()
+        .check(new JsonObject(context.getAdditionalProperties())));
+    } catch (Exception e) {
+      LOG.warn("submitJob:: {}", e.getMessage());
+      return Future.failedFuture(e);
+    }
+
+    Future<Template> templateByIdFuture = templateDao.getTemplateById(jobRequest.getTemplateId())
+      .map(optionalTemplate -> optionalTemplate.orElseThrow(() -> new BadRequestException(
+        String.format("Template with id %s does not exist", jobRequest.getTemplateId()))));
+
+    // the locale is resolved while the token of the request is valid, the job renders without requests
+    return Future.all(templateByIdFuture, settingsClient.lookupLocaleSetting())
+      .compose(compositeFuture -> {
+        Template template = compositeFuture.resultAt(0);
+        LocaleSettings locale = compositeFuture.resultAt(1);
+        TemplateServiceImpl.validateTemplateProcessingRequest(new TemplateProcessingRequest()
+          .withTemplateId(jobRequest.getTemplateId())
+          .withLang(jobRequest.getLang())
+          .withOutputFormat(jobRequest.getOutputFormat()), template);
+
+        RenderJob job = new RenderJob()
+          .withId(UUID.randomUUID().toString())
+          .withTemplateId(jobRequest.getTemplateId())
+          .withLang(jobRequest.getLang())
+          .withOutputFormat(jobRequest.getOutputFormat())
+          .withLanguageTag(locale.getLanguageTag())
+          .withTimeZoneId(locale.getTimeZoneId())
+          .withStatus(RenderJob.Status.IN_PROGRESS)
+          .withTotalItems(contexts.size())
+          .withProcessedItems(0)
+          .withFailedItems(0);
+        return jobDao.createJob(job, buildItems(job.getId(), contexts)).map(job);
+      })
+      .onSuccess(job -> {
+        LOG.info("submitJob:: Render job {} with {} items submitted", job.getId(), job.getTotalItems());
+        RenderJobWorker.getInstance().schedule(vertx, tenantId, job.getId());
+        RenderJobRetention.getInstance().purgeIfDue(tenantId, jobDao);
+      });
+  }
+
+  private static List<RenderJobItem> buildItems(String jobId, List<Context> contexts) {
+    List<RenderJobItem> items = new ArrayList<>(contexts.size());
+    for (int sequence = 0; sequence < contexts.size(); sequence++) {
+      items.add(new RenderJobItem()
+        .withId(UUID.randomUUID().toString())
+        .withJobId(jobId)
+        .withSequence(sequence)
+        .withStatus(RenderJobItem.Status.PENDING)
+        .withContext(contexts.get(sequence)));
+    }
+    return items;
+  }
+
+  @Override
+  public Future<RenderJob> getJob(String id) {
+    LOG.debug("getJob:: Retrieving render job {}", id);
+    return jobDao.getJobById(id)
+      .map(optionalJob -> optionalJob.orElseThrow(() ->
+        new NotFoundException(String.format("Render job with id '%s' not found", id))))
+      .onSuccess(job -> {
+        if (isAbandoned(job)) {
+          LOG.info("getJob:: Lease of render job {} expired, resuming it", id);
+          RenderJobWorker.getInstance().schedule(vertx, tenantId, id);
+        }
+      })
+      // the token identifies the worker holding the job, it is of no use to clients
+      .map(job -> job.withLeaseToken(null));
+  }
+
+  @Override
+  public Future<RenderJobResults> getJobResults(String id, int offset, int limit) {
+    LOG.debug("getJobResults:: Retrieving results of render job {}, offset {}, limit {}", id, offset, limit);
+    return getJob(id)
+      .compose(job -> jobDao.getItems(id, offset, limit, false)
+        .map(items -> new RenderJobResults()
+          .withAttachments(SharedAttachments.extract(items.stream()
+            .map(RenderJobItem::getResult)
+            .filter(Objects::nonNull)
+            .toList()))
+          .withResults(items)
+          .withTotalRecords(job.getTotalItems())));
+  }
+
+  private static boolean isAbandoned(RenderJob job) {
+    return job.getStatus() == RenderJob.Status.IN_PROGRESS
+      && (job.getLeaseExpiresAt() == null || job.getLeaseExpiresAt().before(new Date()));
+  }
+}
@@ -0,0 +1,332 @@
+package org.folio.template.service;
+
+import static org.folio.okapi.common.XOkapiHeaders.TENANT;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.RenderJob;
+import org.folio.rest.jaxrs.model.RenderJobItem;
+import org.folio.rest.jaxrs.model.Template;
+import org.folio.rest.jaxrs.model.TemplateProcessingRequest;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.template.RenderCapacityExceededException;
+import org.folio.template.client.LocaleSettings;
+import org.folio.template.dao.RenderJobDao;
+import org.folio.template.dao.RenderJobDaoImpl;
+import org.folio.template.util.ModuleConfig;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+/**
+ * Processes render jobs in the background. A fixed number of jobs is processed concurrently per module
+ * instance, further jobs wait in a queue. A worker holds a lease on its job and renders the items in chunks;
+ * after each chunk the rendered items and the job progress are saved in one transaction. The lease is renewed
+ * while a chunk is rendered or waits for render capacity. Every module instance periodically scans the
+ * tenants for jobs whose lease expired, so a job whose worker stopped resumes from the last checkpoint even
+ * when nobody polls it; a polled job is resumed right away. A worker whose lease was taken over by another
+ * worker stops at its next checkpoint without saving it. Completed jobs are removed by {@link RenderJobRetention}.
+ * <p>
+ * The template is read once per chunk and rendered with the locale resolved when the job was submitted, so
+ * a job makes no requests to other modules and does not depend on the token of the submitting request.
+ * Each chunk is admitted as one render, so render jobs share the render capacity and the per-tenant
+ * scheduling with {@code POST /template-request}.
+ */
+public class RenderJobWorker {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String WORKERS_SETTING = "RENDER_JOB_WORKERS";
+  public static final String CHUNK_SIZE_SETTING = "RENDER_JOB_CHUNK_SIZE";
+  public static final String LEASE_SETTING = "RENDER_JOB_LEASE_SECONDS";
+  public static final String SCAN_SETTING = "RENDER_JOB_SCAN_SECONDS";
+  private static final LocaleSettings DEFAULT_LOCALE = new LocaleSettings("en-US", "UTC");
+  private static final int SCAN_LIMIT = 100;
+  // schemas of the tenants the module is enabled for that have render jobs
+  private static final String TENANT_SCHEMAS_SQL = "SELECT n.nspname FROM pg_catalog.pg_namespace n"
+    + " JOIN pg_catalog.pg_class c ON c.relnamespace = n.oid"
+    + " WHERE c.relname = 'render_job' AND c.relkind = 'r' AND right(n.nspname, $1) = $2";
+
+  private static final RenderJobWorker INSTANCE = new RenderJobWorker(
+    ModuleConfig.getInt(WORKERS_SETTING, 2),
+    ModuleConfig.getInt(CHUNK_SIZE_SETTING, 100),
+    ModuleConfig.getLong(LEASE_SETTING, 300),
+    ModuleConfig.getLong(SCAN_SETTING, 60));
+
+  private final int workers;
+  private final int chunkSize;
+  private final long leaseSeconds;
+  private final long scanSeconds;
+  private final AtomicBoolean scanStarted = new AtomicBoolean();
+
+  private final Deque<ScheduledJob> queue = new ArrayDeque<>();
+  private final Set<String> scheduled = new HashSet<>();
+  private int running;
+
+  private record ScheduledJob(Vertx vertx, String tenantId, String jobId) {
+    String key() {
+      return tenantId + ":" + jobId;
+    }
+  }
+
+  RenderJobWorker(int workers, int chunkSize, long leaseSeconds, long scanSeconds) {
+    this.workers = workers;
+    this.chunkSize = chunkSize;
+    this.leaseSeconds = leaseSeconds;
+    this.scanSeconds = scanSeconds;
+  }
+
+  public static RenderJobWorker getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Starts the periodic scan for jobs whose lease expired, once per module instance. A scan interval of 0
+   * disables the scan, abandoned jobs then resume only when they are polled.
+   *
+   * @param vertx vertx
+   */
+  public void startScan(Vertx vertx) {
+    if (scanSeconds <= 0 || !scanStarted.compareAndSet(false, true)) {
+      return;
+    }
+    LOG.info("startScan:: Scanning for abandoned render jobs every {} seconds", scanSeconds);
+    vertx.setPeriodic(scanSeconds * 1000, id -> scan(vertx));
+  }
+
+  private void scan(Vertx vertx) {
+    String suffix = "_" + PostgresClient.getModuleName();
+    PostgresClient.getInstance(vertx).select(TENANT_SCHEMAS_SQL, Tuple.of(suffix.length(), suffix))
+      .onSuccess(rows -> {
+        for (Row row : rows) {
+          String schemaName = row.getString("nspname");
+          String tenantId = schemaName.substring(0, schemaName.length() - suffix.length());
+          RenderJobDao jobDao = new RenderJobDaoImpl(vertx, tenantId);
+          RenderJobRetention.getInstance().purgeIfDue(tenantId, jobDao);
+          jobDao.findAbandonedJobIds(SCAN_LIMIT)
+            .onSuccess(jobIds -> jobIds.forEach(jobId -> {
+              LOG.info("scan:: Lease of render job {} of tenant {} expired, resuming it", jobId, tenantId);
+              schedule(vertx, tenantId, jobId);
+            }))
+            .onFailure(e -> LOG.warn("scan:: Failed to scan render jobs of tenant {}: {}", tenantId,
+              e.getMessage()));
+        }
+      })
+      .onFailure(e -> LOG.warn("scan:: Failed to list tenants with render jobs: {}", e.getMessage()));
+  }
+
+  /**
+   * Schedules processing of the job unless it is already scheduled in this module instance
+   *
+   * @param vertx    vertx
+   * @param tenantId tenant the job belongs to
+   * @param jobId    job id
+   */
+  public void schedule(Vertx vertx, String tenantId, String jobId) {
+    ScheduledJob job = new ScheduledJob(vertx, tenantId, jobId);
+    synchronized (this) {
+      if (!scheduled.add(job.key())) {
+        LOG.debug("schedule:: Render job {} is already scheduled", jobId);
+        return;
+      }
+      if (running >= workers) {
+        LOG.info("schedule:: All workers are busy, queueing render job {}", jobId);
+        queue.addLast(job);
+        return;
+      }
+      running++;
+    }
+    start(job);
+  }
+
+  private void start(ScheduledJob job) {
+    LOG.info("start:: Processing render job {} of tenant {}", job.jobId(), job.tenantId());
+    Future<Void> result;
+    try {
+      result = process(job);
+    } catch (Exception e) {
+      result = Future.failedFuture(e);
+    }
+    result.onComplete(ar -> {
+      if (ar.failed()) {
+        LOG.warn("start:: Processing of render job {} stopped, it resumes after its lease expires",
+          job.jobId(), ar.cause());
+      }
+      finish(job);
+    });
+  }
+
+  private void finish(ScheduledJob job) {
+    ScheduledJob next;
+    synchronized (this) {
+      scheduled.remove(job.key());
+      next = queue.pollFirst();
+      if (next == null) {
+        running--;
+      }
+    }
+    if (next != null) {
+      start(next);
+    }
+  }
+
+  private Future<Void> process(ScheduledJob scheduledJob) {
+    RenderJobDao jobDao = new RenderJobDaoImpl(scheduledJob.vertx(), scheduledJob.tenantId());
+    String leaseToken = UUID.randomUUID().toString();
+    return jobDao.acquireLease(scheduledJob.jobId(), leaseToken, leaseExpiration())
+      .compose(acquired -> {
+        if (Boolean.FALSE.equals(acquired)) {
+          LOG.info("process:: Render job {} is finished or held by another worker", scheduledJob.jobId());
+          return Future.succeededFuture();
+        }
+        // templates are read from the database, no request to another module is made while rendering
+        TemplateServiceImpl templateService = new TemplateServiceImpl(scheduledJob.vertx(),
+          Map.of(TENANT, scheduledJob.tenantId()));
+        return jobDao.getJobById(scheduledJob.jobId())
+          .compose(job -> job.isPresent()
+            ? processChunks(scheduledJob, jobDao, templateService, job.get().withLeaseToken(leaseToken))
+            : Future.succeededFuture());
+      });
+  }
+
+  private Future<Void> processChunks(ScheduledJob scheduledJob, RenderJobDao jobDao,
+    TemplateServiceImpl templateService, RenderJob job) {
+
+    if (job.getProcessedItems() >= job.getTotalItems()) {
+      LOG.info("processChunks:: Render job {} completed, {} of {} items failed", job.getId(),
+        job.getFailedItems(), job.getTotalItems());
+      return jobDao.saveCheckpoint(job.withStatus(RenderJob.Status.COMPLETED).withCompletedAt(new Date()), List.of())
+        .mapEmpty();
+    }
+    return jobDao.getItems(job.getId(), job.getProcessedItems(), chunkSize, true)
+      .compose(items -> renewingLease(scheduledJob.vertx(), jobDao, job,
+        renderChunk(scheduledJob, templateService, job, items)))
+      .compose(items -> {
+        int failed = (int) items.stream()
+          .filter(item -> item.getStatus() == RenderJobItem.Status.FAILED)
+          .count();
+        job.withProcessedItems(job.getProcessedItems() + items.size())
+          .withFailedItems(job.getFailedItems() + failed)
+          .withLeaseExpiresAt(leaseExpiration());
+        if (items.isEmpty()) {
+          // items are missing, nothing left to resume
+          job.withProcessedItems(job.getTotalItems());
+        }
+        return jobDao.saveCheckpoint(job, items);
+      })
+      .compose(saved -> {
+        if (Boolean.FALSE.equals(saved)) {
+          LOG.info("processChunks:: Render job {} was taken over by another worker, stopping", job.getId());
+          return Future.succeededFuture();
+        }
+        return processChunks(scheduledJob, jobDao, templateService, job);
+      });
+  }
+
+  /**
+   * Renews the lease of the job until the chunk is rendered, so a chunk waiting for render capacity longer
+   * than the lease is not taken over by another worker
+   */
+  private <T> Future<T> renewingLease(Vertx vertx, RenderJobDao jobDao, RenderJob job, Future<T> chunk) {
+    long renewalMillis = Math.max(1000, leaseSeconds * 1000 / 3);
+    long timerId = vertx.setPeriodic(renewalMillis, id ->
+      jobDao.renewLease(job.getId(), job.getLeaseToken(), leaseExpiration())
+        .onSuccess(renewed -> {
+          if (Boolean.FALSE.equals(renewed)) {
+            LOG.info("renewingLease:: Render job {} was taken over by another worker", job.getId());
+          }
+        })
+        .onFailure(e -> LOG.warn("renewingLease:: Failed to renew lease of render job {}: {}", job.getId(),
+          e.getMessage())));
+    return chunk.onComplete(ar -> vertx.cancelTimer(timerId));
+  }
+
+  /**
+   * Renders a chunk as one admitted render, retrying the chunk while the render capacity is exhausted
+   */
+  private Future<List<RenderJobItem>> renderChunk(ScheduledJob scheduledJob, TemplateServiceImpl templateService,
+    RenderJob job, List<RenderJobItem> items) {
+
+    return RenderAdmissionController.forRenders()
+      .submit(scheduledJob.tenantId(), () -> renderItems(scheduledJob.vertx(), templateService, job, items))
+      .recover(throwable -> {
+        if (throwable instanceof RenderCapacityExceededException capacityException) {
+          LOG.debug("renderChunk:: Render capacity exhausted, retrying chunk of job {}", job.getId());
+          Promise<List<RenderJobItem>> retry = Promise.promise();
+          scheduledJob.vertx().setTimer(Math.max(1, capacityException.getRetryAfterSeconds() * 1000),
+            id -> renderChunk(scheduledJob, templateService, job, items).onComplete(retry));
+          return retry.future();
+        }
+        return Future.failedFuture(throwable);
+      });
+  }
+
+  private Future<List<RenderJobItem>> renderItems(Vertx vertx, TemplateServiceImpl templateService,
+    RenderJob job, List<RenderJobItem> items) {
+
+    TemplateProcessingRequest request = new TemplateProcessingRequest()
+      .withTemplateId(job.getTemplateId())
+      .withLang(job.getLang())
+      .withOutputFormat(job.getOutputFormat());
+    LocaleSettings locale = job.getLanguageTag() == null ? DEFAULT_LOCALE
+      : new LocaleSettings(job.getLanguageTag(), job.getTimeZoneId());
+
+    return templateService.getRenderableTemplate(request)
+      .compose(template -> {
+        Future<Void> future = Future.succeededFuture();
+        for (RenderJobItem item : items) {
+          future = future.compose(v -> TemplateServiceImpl.nextTurn(vertx))
+            .compose(v -> renderItem(templateService, template, request, locale, job, item));
+        }
+        return future.map(items);
+      }, throwable -> {
+        // the template was deleted or changed since submission, none of the items can be rendered
+        LOG.warn("renderItems:: Failed to prepare template of job {}: {}", job.getId(), throwable.getMessage());
+        items.forEach(item -> fail(item, throwable));
+        return Future.succeededFuture(items);
+      });
+  }
+
+  private Future<Void> renderItem(TemplateServiceImpl templateService, Template template,
+    TemplateProcessingRequest request, LocaleSettings locale, RenderJob job, RenderJobItem item) {
+
+    JsonObject context = item.getContext() == null ? new JsonObject()
+      : new JsonObject(item.getContext().getAdditionalProperties());
+    return templateService.renderContext(template, request, locale, context)
+      .onSuccess(result -> item.withStatus(RenderJobItem.Status.COMPLETED)
+        .withResult(result)
+        .withContext(null))
+      .<Void>mapEmpty()
+      .recover(throwable -> {
+        LOG.warn("renderItem:: Failed to render item {} of job {}: {}", item.getSequence(), job.getId(),
+          throwable.getMessage());
+        fail(item, throwable);
+        return Future.succeededFuture();
+      });
+  }
+
+  private static void fail(RenderJobItem item, Throwable throwable) {
+    item.withStatus(RenderJobItem.Status.FAILED)
+      .withErrorMessage(throwable.getMessage())
+      .withContext(null);
+  }
+
+  private Date leaseExpiration() {
+    return Date.from(Instant.now().plusSeconds(leaseSeconds));
+  }
+}
@@ -1,14 +1,22 @@
 package org.folio.template.service;
 
 import io.vertx.core.Future;
+import org.folio.rest.jaxrs.model.Attachment;
+import org.folio.rest.jaxrs.model.MailMergeRequest;
+import org.folio.rest.jaxrs.model.MailMergeResult;
 import org.folio.rest.jaxrs.model.Template;
+import org.folio.rest.jaxrs.model.TemplateImportRequest;
+import org.folio.rest.jaxrs.model.TemplateImportResult;
+import org.folio.rest.jaxrs.model.TemplateLookupRequest;
+import org.folio.rest.jaxrs.model.TemplateLookupResult;
 import org.folio.rest.jaxrs.model.TemplatePreviewRequest;
 import org.folio.rest.jaxrs.model.TemplatePreviewResult;
 import org.folio.rest.jaxrs.model.TemplateProcessingRequest;
 import org.folio.rest.jaxrs.model.TemplateProcessingResult;
+import org.folio.rest.jaxrs.model.TemplatesCollection;
+import org.folio.template.dao.StoredTemplate;
 
 import java.io.UnsupportedEncodingException;
-import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,9 +30,19 @@ public interface TemplateService {
    * @param query  CQL query
    * @param offset offset
    * @param limit  limit
-   * @return future with list of templates
+   * @param fields comma separated top-level properties to return, null to return whole templates
+   * @return future with the page of templates and the total number of matching templates
    */
-  Future<List<Template>> getTemplates(String query, int offset, int limit);
+  Future<TemplatesCollection> getTemplates(String query, int offset, int limit, String fields);
+
+  /**
+   * Exports a page of templates as newline delimited JSON, one stored template per line in id order
+   *
+   * @param afterId id of the last template of the previous page, null for the first page
+   * @param limit   maximum number of templates
+   * @return future with the page, empty if there are no more templates
+   */
+  Future<String> exportTemplates(String afterId, int limit);
 
   /**
    * Searches for template by id
@@ -34,6 +52,30 @@ public interface TemplateService {
    */
   Future<Optional<Template>> getTemplateById(String id);
 
+  /**
+   * Searches for templates by ids with one query
+   *
+   * @param lookupRequest template ids
+   * @return future with the found templates in the order of the ids and the ids without a template
+   */
+  Future<TemplateLookupResult> lookupTemplates(TemplateLookupRequest lookupRequest);
+
+  /**
+   * Searches for template by id together with the digest of its stored version
+   *
+   * @param id template id
+   * @return future with optional stored template
+   */
+  Future<Optional<StoredTemplate>> getStoredTemplateById(String id);
+
+  /**
+   * Gets the digest of the stored version of a template without loading the template
+   *
+   * @param id template id
+   * @return future with optional digest, empty if the template does not exist
+   */
+  Future<Optional<String>> getTemplateDigest(String id);
+
   /**
    * Saves template with generated id
    *
@@ -42,13 +84,23 @@ public interface TemplateService {
    */
   Future<String> addTemplate(Template template);
 
+  /**
+   * Validates and compiles templates and creates or replaces the valid ones in one transaction
+   *
+   * @param importRequest templates to import
+   * @return future with the number of imported templates and the templates that were not imported
+   */
+  Future<TemplateImportResult> importTemplates(TemplateImportRequest importRequest);
+
   /**
    * Updates template with given id
    *
    * @param template template to update
-   * @return future with true is succeeded
+   * @param ifMatch  value of the {@code If-Match} header, null to update unconditionally
+   * @return future with the digest of the updated version, failed with
+   * {@link org.folio.template.TemplateVersionMismatchException} if the stored version does not match
    */
-  Future<Boolean> updateTemplate(Template template);
+  Future<String> updateTemplate(Template template, String ifMatch);
 
   /**
    * Deletes template by id
@@ -67,6 +119,22 @@ public interface TemplateService {
   Future<TemplateProcessingResult> processTemplate(
     TemplateProcessingRequest templateRequest) throws UnsupportedEncodingException;
 
+  /**
+   * Gets the content of an attachment stored by a render with attachments by reference
+   *
+   * @param hash SHA-256 of the content in hex
+   * @return future with optional attachment content, empty if no content is stored under the hash
+   */
+  Future<Optional<Attachment>> getAttachmentContent(String hash);
+
+  /**
+   * Gets template specified by id once and processes it with each of the given contexts
+   *
+   * @param mailMergeRequest mail merge request
+   * @return results in the order of the contexts
+   */
+  Future<MailMergeResult> processMailMerge(MailMergeRequest mailMergeRequest);
+
   /**
    * Renders an inline template (header + body) against a context without persisting it
    *
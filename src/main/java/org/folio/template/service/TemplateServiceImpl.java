@@ -1,6 +1,7 @@
 package org.folio.template.service;
 
 import static io.vertx.core.Future.failedFuture;
+import static io.vertx.core.Future.succeededFuture;
 import static io.vertx.core.json.JsonObject.mapFrom;
 import static java.lang.String.format;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
@@ -8,40 +9,78 @@ import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static org.folio.okapi.common.XOkapiHeaders.TENANT;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.rest.jaxrs.model.Attachment;
+import org.folio.rest.jaxrs.model.Context;
 import org.folio.rest.jaxrs.model.LocalizedTemplatesProperty;
+import org.folio.rest.jaxrs.model.MailMergeRequest;
+import org.folio.rest.jaxrs.model.MailMergeResult;
 import org.folio.rest.jaxrs.model.Meta;
 import org.folio.rest.jaxrs.model.Result;
 import org.folio.rest.jaxrs.model.Template;
+import org.folio.rest.jaxrs.model.TemplateImportError;
+import org.folio.rest.jaxrs.model.TemplateImportRequest;
+import org.folio.rest.jaxrs.model.TemplateImportResult;
+import org.folio.rest.jaxrs.model.TemplateLookupRequest;
+import org.folio.rest.jaxrs.model.TemplateLookupResult;
 import org.folio.rest.jaxrs.model.TemplatePreviewRequest;
 import org.folio.rest.jaxrs.model.TemplatePreviewResult;
 import org.folio.rest.jaxrs.model.TemplateProcessingRequest;
 import org.folio.rest.jaxrs.model.TemplateProcessingResult;
+import org.folio.rest.jaxrs.model.TemplatesCollection;
+import org.folio.rest.tools.utils.MetadataUtil;
+import org.folio.template.ContextTooLargeException;
 import org.folio.template.InUseTemplateException;
+import org.folio.template.RenderLimitExceededException;
+import org.folio.template.TemplateVersionMismatchException;
+import org.folio.template.cache.RenderRequestKey;
+import org.folio.template.cache.RenderResultCache;
+import org.folio.template.cache.RenderResultKey;
+import org.folio.template.cache.RequestCoalescer;
+import org.folio.template.cache.TemplateReferenceIndex;
 import org.folio.template.client.CirculationStorageClient;
 import org.folio.template.client.LocaleSettings;
 import org.folio.template.client.SettingsClient;
+import org.folio.template.dao.AttachmentDao;
+import org.folio.template.dao.AttachmentDaoImpl;
+import org.folio.template.dao.StoredTemplate;
 import org.folio.template.dao.TemplateDao;
 import org.folio.template.dao.TemplateDaoImpl;
-import org.folio.template.resolver.TemplateResolver;
+import org.folio.template.resolver.LocalTemplateResolvers;
+import org.folio.template.util.AttachmentContent;
+import org.folio.template.util.ContextHasher;
+import org.folio.template.util.ContextLimits;
+import org.folio.template.util.ModuleConfig;
 import org.folio.template.util.OkapiModuleClientException;
+import org.folio.template.util.SharedAttachments;
 import org.folio.template.util.TemplateContextPreProcessor;
+import org.folio.template.util.TemplateETag;
 import org.folio.template.util.TemplateEngineHelper;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.ReplyException;
 import io.vertx.core.json.JsonObject;
 
 
@@ -50,28 +89,59 @@ public class TemplateServiceImpl implements TemplateService {
   private static final Logger LOG = LogManager.getLogger("mod-template-engine");
   private static final LocaleSettings DEFAULT_LOCALE = new LocaleSettings("en-US", "UTC");
   private static final String PREVIEW_OUTPUT_FORMAT = "text/html";
+  public static final String MAIL_MERGE_MAX_CONTEXTS_SETTING = "MAIL_MERGE_MAX_CONTEXTS";
+  private static final int MAIL_MERGE_MAX_CONTEXTS = ModuleConfig.getInt(MAIL_MERGE_MAX_CONTEXTS_SETTING, 1000);
+  public static final String TEMPLATE_IMPORT_MAX_TEMPLATES_SETTING = "TEMPLATE_IMPORT_MAX_TEMPLATES";
+  private static final int TEMPLATE_IMPORT_MAX_TEMPLATES =
+    ModuleConfig.getInt(TEMPLATE_IMPORT_MAX_TEMPLATES_SETTING, 5000);
+  // properties of the template schema, the generated model lists all of them in its property order
+  private static final Set<String> TEMPLATE_PROPERTIES =
+    Set.of(Template.class.getAnnotation(JsonPropertyOrder.class).value());
+  private static final RequestCoalescer<RenderRequestKey, TemplateProcessingResult> IN_FLIGHT_RENDERS =
+    new RequestCoalescer<>();
 
   private record Rendered(JsonObject content, List<Attachment> attachments) {}
 
   private Vertx vertx;
+  private String tenantId;
+  private Map<String, String> okapiHeaders;
   private TemplateDao templateDao;
+  private AttachmentDao attachmentDao;
   private Map<String, String> templateResolverAddressesMap;
   private SettingsClient settingsClient;
   private CirculationStorageClient circulationStorageClient;
+  private RenderResultCache resultCache;
 
 
   public TemplateServiceImpl(Vertx vertx, Map<String, String> okapiHeaders) {
     this.vertx = vertx;
+    this.okapiHeaders = okapiHeaders;
+    this.settingsClient = new SettingsClient(vertx, okapiHeaders);
+    this.tenantId = settingsClient.getTenant();
     this.templateDao = new TemplateDaoImpl(vertx, okapiHeaders.get(TENANT));
+    this.attachmentDao = new AttachmentDaoImpl(vertx, okapiHeaders.get(TENANT));
     this.templateResolverAddressesMap = vertx.sharedData().getLocalMap(
       TemplateEngineHelper.TEMPLATE_RESOLVERS_LOCAL_MAP);
-    this.settingsClient = new SettingsClient(vertx, okapiHeaders);
     this.circulationStorageClient = new CirculationStorageClient(vertx, okapiHeaders);
+    this.resultCache = RenderResultCache.getInstance();
   }
 
-  public Future<List<Template>> getTemplates(String query, int offset, int limit) {
-    LOG.debug("getTemplates:: Retrieving Templates with query {}", query);
-    return templateDao.getTemplates(query, offset, limit);
+  public Future<TemplatesCollection> getTemplates(String query, int offset, int limit, String fields) {
+    LOG.debug("getTemplates:: Retrieving Templates with query {}, fields {}", query, fields);
+    return templateDao.getTemplatesCollection(query, offset, limit, parseFields(fields));
+  }
+
+  @Override
+  public Future<String> exportTemplates(String afterId, int limit) {
+    LOG.debug("exportTemplates:: Exporting {} Templates after ID : {}", limit, afterId);
+    // stored documents are written as they are, without a round trip through the model
+    return templateDao.getTemplateDocuments(afterId, limit)
+      .map(documents -> {
+        StringBuilder page = new StringBuilder();
+        documents.forEach(document -> page.append(document).append('\n'));
+        LOG.info("exportTemplates:: Exported {} Templates", documents.size());
+        return page.toString();
+      });
   }
 
   @Override
@@ -80,6 +150,46 @@ public class TemplateServiceImpl implements TemplateService {
     return templateDao.getTemplateById(id);
   }
 
+  @Override
+  public Future<TemplateLookupResult> lookupTemplates(TemplateLookupRequest lookupRequest) {
+    // ids are compared as UUIDs, so differently cased ids of the same template are looked up once
+    Set<UUID> ids = new LinkedHashSet<>();
+    lookupRequest.getIds().forEach(id -> ids.add(UUID.fromString(id)));
+    LOG.debug("lookupTemplates:: Retrieving {} Templates by ID", ids.size());
+    return templateDao.getTemplatesByIds(ids.stream().map(UUID::toString).toList())
+      .map(found -> {
+        Map<UUID, Template> templatesById = new HashMap<>();
+        found.forEach(template -> templatesById.put(UUID.fromString(template.getId()), template));
+        List<Template> templates = new ArrayList<>(found.size());
+        List<String> missingIds = new ArrayList<>();
+        for (UUID id : ids) {
+          Template template = templatesById.get(id);
+          if (template != null) {
+            templates.add(template);
+          } else {
+            missingIds.add(id.toString());
+          }
+        }
+        LOG.info("lookupTemplates:: Found {} Templates, {} missing", templates.size(), missingIds.size());
+        return new TemplateLookupResult()
+          .withTemplates(templates)
+          .withMissingIds(missingIds)
+          .withTotalRecords(templates.size());
+      });
+  }
+
+  @Override
+  public Future<Optional<StoredTemplate>> getStoredTemplateById(String id) {
+    LOG.debug("getStoredTemplateById:: Retrieving stored Template by ID : {}", id);
+    return templateDao.getStoredTemplateById(id);
+  }
+
+  @Override
+  public Future<Optional<String>> getTemplateDigest(String id) {
+    LOG.debug("getTemplateDigest:: Retrieving digest of Template by ID : {}", id);
+    return templateDao.getTemplateDigest(id);
+  }
+
   @Override
   public Future<String> addTemplate(Template template) {
     LOG.debug("addTemplate:: Adding Template with ID : {}", template.getId());
@@ -87,31 +197,120 @@ public class TemplateServiceImpl implements TemplateService {
     if (template.getId() == null) {
       template.setId(UUID.randomUUID().toString());
     }
-    return templateDao.addTemplate(template);
+    return templateDao.addTemplate(template)
+      .onSuccess(id -> TemplateWarmUp.getInstance().precompile(vertx, template, templateResolverAddressesMap));
+  }
+
+  @Override
+  public Future<TemplateImportResult> importTemplates(TemplateImportRequest importRequest) {
+    List<Template> templates = importRequest.getTemplates();
+    LOG.debug("importTemplates:: Importing {} Templates", templates.size());
+    if (templates.size() > TEMPLATE_IMPORT_MAX_TEMPLATES) {
+      return failedFuture(new BadRequestException(String.format(
+        "Import contains %d templates, the maximum is %d", templates.size(), TEMPLATE_IMPORT_MAX_TEMPLATES)));
+    }
+    try {
+      MetadataUtil.populateMetadata(templates, okapiHeaders);
+    } catch (Exception e) {
+      LOG.warn("importTemplates:: Failed to populate metadata: {}", e.getMessage());
+      return failedFuture(e);
+    }
+
+    List<TemplateImportError> errors = new ArrayList<>();
+    Set<String> ids = new HashSet<>();
+    List<Future<Void>> compiled = new ArrayList<>(templates.size());
+    for (int index = 0; index < templates.size(); index++) {
+      Template template = templates.get(index);
+      if (template.getId() == null) {
+        template.setId(UUID.randomUUID().toString());
+      }
+      if (!ids.add(template.getId())) {
+        compiled.add(failedFuture("Template id occurs more than once in the import"));
+        continue;
+      }
+      try {
+        validateTemplate(template);
+        compiled.add(TemplateWarmUp.getInstance().compile(vertx, template, templateResolverAddressesMap));
+      } catch (BadRequestException e) {
+        compiled.add(failedFuture(e));
+      }
+    }
+
+    return Future.join(compiled)
+      .recover(e -> succeededFuture())
+      .compose(v -> {
+        List<Template> valid = new ArrayList<>(templates.size());
+        for (int index = 0; index < templates.size(); index++) {
+          Future<Void> result = compiled.get(index);
+          if (result.succeeded()) {
+            valid.add(templates.get(index));
+          } else {
+            errors.add(new TemplateImportError()
+              .withIndex(index)
+              .withId(templates.get(index).getId())
+              .withMessage(result.cause().getMessage()));
+          }
+        }
+        Future<Void> saved = valid.isEmpty() ? succeededFuture() : templateDao.saveTemplates(valid);
+        return saved.map(saveResult -> {
+          LOG.info("importTemplates:: Imported {} of {} Templates", valid.size(), templates.size());
+          return new TemplateImportResult()
+            .withImportedRecords(valid.size())
+            .withErrors(errors)
+            .withTotalRecords(templates.size());
+        });
+      });
   }
 
   @Override
-  public Future<Boolean> updateTemplate(Template template) {
+  public Future<String> updateTemplate(Template template, String ifMatch) {
     LOG.debug("updateTemplate:: Updating Template with ID : {}", template.getId());
     validateTemplate(template);
-    return getTemplateById(template.getId())
-      .compose(optionalTemplate -> optionalTemplate
-        .map(t -> templateDao.updateTemplate(template))
-        .orElse(failedFuture(new NotFoundException(
-          String.format("Template with id '%s' not found", template.getId()))))
-      );
+    List<String> expectedDigests = ifMatch == null || TemplateETag.isAny(ifMatch)
+      ? null : TemplateETag.parseStrongDigests(ifMatch);
+    return templateDao.updateTemplate(template, expectedDigests)
+      .compose(optionalDigest -> optionalDigest.map(Future::succeededFuture)
+        .orElseGet(() -> failedUpdate(template.getId(), expectedDigests)))
+      .onSuccess(digest -> TemplateWarmUp.getInstance().precompile(vertx, template, templateResolverAddressesMap));
+  }
+
+  /**
+   * Tells apart a missing template from a conditional update of a template that has changed since
+   */
+  private Future<String> failedUpdate(String id, List<String> expectedDigests) {
+    Future<Boolean> exists = expectedDigests == null
+      ? succeededFuture(false)
+      : templateDao.getTemplateDigest(id).map(Optional::isPresent);
+    return exists.compose(found -> {
+      if (Boolean.TRUE.equals(found)) {
+        LOG.info("updateTemplate:: Template with ID : {} was modified since the requested version", id);
+        return failedFuture(new TemplateVersionMismatchException(
+          String.format("Template with id '%s' does not match the If-Match version", id)));
+      }
+      return failedFuture(new NotFoundException(String.format("Template with id '%s' not found", id)));
+    });
   }
 
   @Override
   public Future<Boolean> deleteTemplate(String id) {
     LOG.debug("deleteTemplate:: deleting Template with ID : {}", id);
-    String query = format("loanNotices == \"*\\\"templateId\\\": \\\"%1$s\\\"*\" " +
-      "OR requestNotices == \"*\\\"templateId\\\": \\\"%1$s\\\"*\" " +
-      "OR feeFineNotices == \"*\\\"templateId\\\": \\\"%1$s\\\"*\"", id);
-
-    return circulationStorageClient.findPatronNoticePolicies(query, 0)
-      .compose(policies -> policies.getInteger("totalRecords") == 0 ?
-        templateDao.deleteTemplate(id) : failedFuture(new InUseTemplateException()))
+    TemplateReferenceIndex referenceIndex = TemplateReferenceIndex.getInstance();
+    Future<Boolean> referenced = referenceIndex.isEnabled()
+      ? referenceIndex.lookUp(tenantId, id, circulationStorageClient)
+        .recover(throwable -> {
+          LOG.info("deleteTemplate:: Template reference index not available, checking template {} remotely", id);
+          return isReferencedByPatronNoticePolicies(id);
+        })
+      : isReferencedByPatronNoticePolicies(id);
+
+    return referenced
+      .compose(inUse -> {
+        if (Boolean.TRUE.equals(inUse)) {
+          LOG.debug("deleteTemplate:: Template {} is referenced by patron notice policies", id);
+          return failedFuture(new InUseTemplateException());
+        }
+        return templateDao.deleteTemplate(id);
+      })
       .recover(throwable -> {
         // indicates that route is not found (returned from folio-module-sidecar/gateway)
         if (isModuleUrlNotFound(throwable)) {
@@ -124,9 +323,94 @@ public class TemplateServiceImpl implements TemplateService {
       });
   }
 
+  private Future<Boolean> isReferencedByPatronNoticePolicies(String id) {
+    String query = format("loanNotices == \"*\\\"templateId\\\": \\\"%1$s\\\"*\" " +
+      "OR requestNotices == \"*\\\"templateId\\\": \\\"%1$s\\\"*\" " +
+      "OR feeFineNotices == \"*\\\"templateId\\\": \\\"%1$s\\\"*\"", id);
+
+    return circulationStorageClient.findPatronNoticePolicies(query, 0)
+      .map(policies -> policies.getInteger("totalRecords") != 0);
+  }
+
   @Override
   public Future<TemplateProcessingResult> processTemplate(TemplateProcessingRequest templateRequest) {
     LOG.debug("processTemplate:: Processing Template with ID : {}", templateRequest.getTemplateId());
+    TemplateWarmUp.getInstance().warmUpTenant(vertx, tenantId, templateDao, templateResolverAddressesMap);
+    JsonObject contextObject = toContextObject(templateRequest.getContext());
+    try {
+      ContextLimits.getInstance().check(contextObject);
+    } catch (ContextTooLargeException e) {
+      LOG.warn("processTemplate:: {}", e.getMessage());
+      return failedFuture(e);
+    }
+    String contextHash = ContextHasher.hash(contextObject);
+    RenderRequestKey requestKey = new RenderRequestKey(tenantId, templateRequest.getTemplateId(),
+      templateRequest.getLang(), templateRequest.getOutputFormat(), contextHash);
+
+    return IN_FLIGHT_RENDERS.execute(requestKey, () -> RenderAdmissionController.forRenders()
+        .submit(tenantId, () -> processTemplate(templateRequest, contextObject, contextHash)))
+      .compose(result -> Boolean.TRUE.equals(templateRequest.getAttachmentsByReference())
+        ? toAttachmentReferences(result) : succeededFuture(result));
+  }
+
+  /**
+   * Stores the attachments of a result by the hash of their content and returns a copy of the result whose
+   * attachments carry the hash instead of the data. The result itself is shared with the result cache and
+   * coalesced requests, so it is not modified.
+   */
+  private Future<TemplateProcessingResult> toAttachmentReferences(TemplateProcessingResult result) {
+    List<Attachment> attachments = result.getResult().getAttachments();
+    if (attachments == null || attachments.isEmpty()) {
+      return succeededFuture(result);
+    }
+    Map<String, Attachment> contents = new LinkedHashMap<>();
+    List<Attachment> references = new ArrayList<>(attachments.size());
+    for (Attachment attachment : attachments) {
+      if (attachment.getData() == null) {
+        references.add(attachment);
+        continue;
+      }
+      String hash = AttachmentContent.hash(attachment.getData());
+      contents.putIfAbsent(hash, new Attachment()
+        .withHash(hash)
+        .withContentType(attachment.getContentType())
+        .withData(attachment.getData()));
+      references.add(new Attachment()
+        .withHash(hash)
+        .withContentType(attachment.getContentType())
+        .withName(attachment.getName())
+        .withDescription(attachment.getDescription())
+        .withDisposition(attachment.getDisposition())
+        .withContentId(attachment.getContentId()));
+    }
+    Result referencingResult = new Result()
+      .withHeader(result.getResult().getHeader())
+      .withBody(result.getResult().getBody())
+      .withAttachments(references);
+
+    return attachmentDao.saveContents(contents.values())
+      .map(v -> {
+        LOG.info("toAttachmentReferences:: Stored {} attachment contents", contents.size());
+        AttachmentRetention.getInstance().purgeIfDue(tenantId, attachmentDao);
+        return new TemplateProcessingResult()
+          .withTemplateId(result.getTemplateId())
+          .withMeta(result.getMeta())
+          .withResult(referencingResult);
+      });
+  }
+
+  @Override
+  public Future<Optional<Attachment>> getAttachmentContent(String hash) {
+    LOG.debug("getAttachmentContent:: Retrieving attachment content {}", hash);
+    if (!AttachmentContent.isHash(hash)) {
+      return failedFuture(new BadRequestException(String.format("Invalid attachment hash '%s'", hash)));
+    }
+    return attachmentDao.getContent(hash);
+  }
+
+  private Future<TemplateProcessingResult> processTemplate(TemplateProcessingRequest templateRequest,
+    JsonObject contextObject, String contextHash) {
+
     Future<Template> templateByIdFuture = getTemplateById(templateRequest.getTemplateId())
       .map(optionalTemplate -> optionalTemplate.orElseThrow(() ->
         new BadRequestException(String.format("Template with id %s does not exist", templateRequest.getTemplateId()))));
@@ -140,38 +424,185 @@ public class TemplateServiceImpl implements TemplateService {
 
         LocalizedTemplatesProperty templateContent = template.getLocalizedTemplates().getAdditionalProperties()
           .get(templateRequest.getLang());
-        JsonObject contextObject =
-          Optional.ofNullable(templateRequest.getContext())
-            .map(JsonObject::mapFrom)
-            .orElse(new JsonObject());
-
         LocaleSettings config = compositeFuture.resultAt(1);
 
+        Optional<RenderResultKey> cacheKey = buildResultCacheKey(templateRequest, template, config, contextHash);
+        Optional<TemplateProcessingResult> cachedResult = cacheKey.flatMap(resultCache::get);
+        if (cachedResult.isPresent()) {
+          LOG.info("processTemplate:: Rendered result served from cache");
+          return succeededFuture(withFreshMeta(cachedResult.get()));
+        }
+
         return render(templateContent, contextObject, template.getTemplateResolver(),
             templateRequest.getOutputFormat(), config)
           .map(rendered -> {
-            Result processedTemplate = rendered.content()
-              .mapTo(Result.class)
-              .withAttachments(rendered.attachments());
-            Meta resultMetaInfo = new Meta()
-              .withSize(processedTemplate.getBody().length())
-              .withDateCreate(Date.from(Instant.now()))
-              .withLang(templateRequest.getLang())
-              .withOutputFormat(templateRequest.getOutputFormat());
-
+            TemplateProcessingResult result = toProcessingResult(rendered, templateRequest.getTemplateId(),
+              templateRequest.getLang(), templateRequest.getOutputFormat());
             LOG.info("processTemplate:: Template processed successfully");
-
-            return new TemplateProcessingResult()
-              .withResult(processedTemplate)
-              .withMeta(resultMetaInfo)
-              .withTemplateId(templateRequest.getTemplateId());
+            cacheKey.ifPresent(key -> resultCache.put(key, result));
+            return result;
           });
       });
   }
 
+  @Override
+  public Future<MailMergeResult> processMailMerge(MailMergeRequest mailMergeRequest) {
+    LOG.debug("processMailMerge:: Processing mail merge of Template with ID : {}",
+      mailMergeRequest.getTemplateId());
+    TemplateWarmUp.getInstance().warmUpTenant(vertx, tenantId, templateDao, templateResolverAddressesMap);
+    if (mailMergeRequest.getContexts().size() > MAIL_MERGE_MAX_CONTEXTS) {
+      return failedFuture(new BadRequestException(String.format(
+        "Mail merge contains %d contexts, the maximum is %d, use a render job for larger batches",
+        mailMergeRequest.getContexts().size(), MAIL_MERGE_MAX_CONTEXTS)));
+    }
+    List<JsonObject> contextObjects = new ArrayList<>(mailMergeRequest.getContexts().size());
+    try {
+      for (Context context : mailMergeRequest.getContexts()) {
+        JsonObject contextObject = toContextObject(context);
+        ContextLimits.getInstance().check(contextObject);
+        contextObjects.add(contextObject);
+      }
+    } catch (ContextTooLargeException e) {
+      LOG.warn("processMailMerge:: {}", e.getMessage());
+      return failedFuture(e);
+    }
+    return RenderAdmissionController.forRenders()
+      .submit(tenantId, () -> processMailMerge(mailMergeRequest, contextObjects));
+  }
+
+  /**
+   * Fetches and validates the template and resolves the locale once, then renders the contexts one after
+   * another, each in its own event loop turn so a large mail merge does not block the event loop
+   */
+  private Future<MailMergeResult> processMailMerge(MailMergeRequest mailMergeRequest,
+    List<JsonObject> contextObjects) {
+
+    TemplateProcessingRequest templateRequest = new TemplateProcessingRequest()
+      .withTemplateId(mailMergeRequest.getTemplateId())
+      .withLang(mailMergeRequest.getLang())
+      .withOutputFormat(mailMergeRequest.getOutputFormat());
+
+    return Future.all(getRenderableTemplate(templateRequest), settingsClient.lookupLocaleSetting())
+      .compose(compositeFuture -> {
+        Template template = compositeFuture.resultAt(0);
+        LocaleSettings config = compositeFuture.resultAt(1);
+
+        List<TemplateProcessingResult> results = new ArrayList<>(contextObjects.size());
+        Future<Void> future = succeededFuture();
+        for (JsonObject contextObject : contextObjects) {
+          future = future.compose(v -> nextTurn(vertx))
+            .compose(v -> renderContext(template, templateRequest, config, contextObject)
+              .map(results::add)
+              .<Void>mapEmpty());
+        }
+        return future.map(v -> {
+          LOG.info("processMailMerge:: Rendered {} contexts", results.size());
+          List<Attachment> attachments = SharedAttachments.extract(results);
+          return new MailMergeResult()
+            .withResults(results)
+            .withAttachments(attachments)
+            .withTotalRecords(results.size());
+        });
+      });
+  }
+
+  /**
+   * Fetches the template of a batch render and checks that it supports the requested language and output
+   * format, so the template is read once for all contexts of the batch
+   *
+   * @param templateRequest request naming the template, language and output format
+   * @return future with the template
+   */
+  Future<Template> getRenderableTemplate(TemplateProcessingRequest templateRequest) {
+    return getTemplateById(templateRequest.getTemplateId())
+      .map(optionalTemplate -> {
+        Template template = optionalTemplate.orElseThrow(() -> new BadRequestException(
+          String.format("Template with id %s does not exist", templateRequest.getTemplateId())));
+        validateTemplateProcessingRequest(templateRequest, template);
+        return template;
+      });
+  }
+
+  /**
+   * Renders one context of a batch render with a template from {@link #getRenderableTemplate}. Neither
+   * the result cache nor the render capacity is involved, the caller admits the batch as a whole.
+   *
+   * @param template        validated template
+   * @param templateRequest request naming the template, language and output format
+   * @param config          locale to render with
+   * @param contextObject   context to render
+   * @return future with the render result
+   */
+  Future<TemplateProcessingResult> renderContext(Template template, TemplateProcessingRequest templateRequest,
+    LocaleSettings config, JsonObject contextObject) {
+
+    LocalizedTemplatesProperty templateContent = template.getLocalizedTemplates().getAdditionalProperties()
+      .get(templateRequest.getLang());
+    return render(templateContent, contextObject, template.getTemplateResolver(),
+        templateRequest.getOutputFormat(), config)
+      .map(rendered -> toProcessingResult(rendered, templateRequest.getTemplateId(),
+        templateRequest.getLang(), templateRequest.getOutputFormat()));
+  }
+
+  /**
+   * Completes in a later turn of the current event loop, so a long batch render lets other events run
+   * between its contexts
+   */
+  static Future<Void> nextTurn(Vertx vertx) {
+    Promise<Void> promise = Promise.promise();
+    vertx.runOnContext(v -> promise.complete());
+    return promise.future();
+  }
+
+  private static TemplateProcessingResult toProcessingResult(Rendered rendered, String templateId, String lang,
+    String outputFormat) {
+
+    Result processedTemplate = rendered.content()
+      .mapTo(Result.class)
+      .withAttachments(rendered.attachments());
+    Meta resultMetaInfo = new Meta()
+      .withSize(processedTemplate.getBody().length())
+      .withDateCreate(Date.from(Instant.now()))
+      .withLang(lang)
+      .withOutputFormat(outputFormat);
+
+    return new TemplateProcessingResult()
+      .withResult(processedTemplate)
+      .withMeta(resultMetaInfo)
+      .withTemplateId(templateId);
+  }
+
+  /**
+   * Copies a cached result with the meta of this request, the cached instance is shared by all hits and
+   * its rendered content is never modified
+   */
+  private static TemplateProcessingResult withFreshMeta(TemplateProcessingResult cached) {
+    Meta meta = new Meta()
+      .withSize(cached.getMeta().getSize())
+      .withDateCreate(Date.from(Instant.now()))
+      .withLang(cached.getMeta().getLang())
+      .withOutputFormat(cached.getMeta().getOutputFormat());
+
+    return new TemplateProcessingResult()
+      .withResult(cached.getResult())
+      .withMeta(meta)
+      .withTemplateId(cached.getTemplateId());
+  }
+
   @Override
   public Future<TemplatePreviewResult> previewTemplate(TemplatePreviewRequest req) {
     LOG.debug("previewTemplate:: Rendering inline template preview");
+    JsonObject contextObject = toContextObject(req.getContext());
+    try {
+      ContextLimits.getInstance().check(contextObject);
+    } catch (ContextTooLargeException e) {
+      LOG.warn("previewTemplate:: {}", e.getMessage());
+      return failedFuture(e);
+    }
+    return RenderAdmissionController.forPreviews().submit(tenantId, () -> renderPreview(req, contextObject));
+  }
+
+  private Future<TemplatePreviewResult> renderPreview(TemplatePreviewRequest req, JsonObject ctx) {
     return settingsClient.lookupLocaleSetting()
       .recover(t -> {
         LOG.warn("previewTemplate:: locale lookup failed, using defaults: {}", t.getMessage());
@@ -181,29 +612,89 @@ public class TemplateServiceImpl implements TemplateService {
         LocalizedTemplatesProperty content = new LocalizedTemplatesProperty()
           .withHeader(Objects.requireNonNullElse(req.getHeader(), ""))
           .withBody(Objects.requireNonNullElse(req.getBody(), ""));
-        JsonObject ctx = Optional.ofNullable(req.getContext())
-          .map(JsonObject::mapFrom)
-          .orElse(new JsonObject());
         return render(content, ctx, "mustache", PREVIEW_OUTPUT_FORMAT, config)
           .map(rendered -> new TemplatePreviewResult()
             .withHeader(Objects.requireNonNullElse(rendered.content().getString("header"), ""))
             .withBody(Objects.requireNonNullElse(rendered.content().getString("body"), "")))
-          .recover(t -> failedFuture(
-            new BadRequestException("Template could not be rendered: " + t.getMessage())));
+          .recover(t -> failedFuture(t instanceof RenderLimitExceededException ? t
+            : new BadRequestException("Template could not be rendered: " + t.getMessage())));
       });
   }
 
   private Future<Rendered> render(LocalizedTemplatesProperty content, JsonObject context,
                                   String resolverName, String outputFormat, LocaleSettings config) {
     LOG.debug("render:: Preprocessing and resolving template");
-    var preProcessor = new TemplateContextPreProcessor(content, context, config);
+    var preProcessor = new TemplateContextPreProcessor(content, context);
     preProcessor.process();
     String address = templateResolverAddressesMap.get(resolverName);
-    return TemplateResolver.createProxy(vertx, address)
-      .processTemplate(mapFrom(content), context, outputFormat)
+    return LocalTemplateResolvers.get(vertx, address)
+      .processTemplate(mapFrom(content), preProcessor.getContext(), outputFormat, config.getLanguageTag(), config.getTimeZoneId())
+      .recover(TemplateServiceImpl::mapResolverFailure)
       .map(json -> new Rendered(json, preProcessor.getAttachments()));
   }
 
+  /**
+   * Wraps the deserialized request context without copying it, rendering never modifies the context
+   */
+  private static JsonObject toContextObject(Context context) {
+    return context == null ? new JsonObject() : new JsonObject(context.getAdditionalProperties());
+  }
+
+  /**
+   * Resolvers report exceeded render limits with a failure code, since exceptions do not cross the event bus
+   */
+  private static <T> Future<T> mapResolverFailure(Throwable throwable) {
+    if (throwable instanceof ReplyException replyException
+      && replyException.failureCode() == RenderLimitExceededException.FAILURE_CODE) {
+      return failedFuture(new RenderLimitExceededException(replyException.getMessage()));
+    }
+    return failedFuture(throwable);
+  }
+
+  /**
+   * Builds the result cache key for a render request. The context hash is computed once per request from
+   * the context as it was sent and is shared with the request coalescing key; preprocessing lays barcode
+   * images over a copy and resolvers format dates while rendering, so the context itself is not modified.
+   * Dates are formatted with the tenant locale, which is therefore part of the key. Templates without a
+   * known version and templates that opted out are never cached.
+   */
+  private Optional<RenderResultKey> buildResultCacheKey(TemplateProcessingRequest templateRequest,
+    Template template, LocaleSettings config, String contextHash) {
+
+    if (!resultCache.isEnabled() || Boolean.FALSE.equals(template.getCacheable())
+      || template.getMetadata() == null || template.getMetadata().getUpdatedDate() == null) {
+      return Optional.empty();
+    }
+    return Optional.of(new RenderResultKey(tenantId, template.getId(),
+      template.getMetadata().getUpdatedDate().getTime(), templateRequest.getLang(),
+      templateRequest.getOutputFormat(), config.getLanguageTag(), config.getTimeZoneId(), contextHash));
+  }
+
+  /**
+   * Parses the requested top-level template properties, the id is always included
+   *
+   * @return requested properties, null if all properties are requested
+   */
+  static List<String> parseFields(String fields) {
+    if (StringUtils.isBlank(fields)) {
+      return null;
+    }
+    Set<String> parsed = new LinkedHashSet<>();
+    parsed.add("id");
+    for (String field : fields.split(",")) {
+      String trimmed = field.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      if (!TEMPLATE_PROPERTIES.contains(trimmed)) {
+        LOG.warn("parseFields:: Unknown template field {}", trimmed);
+        throw new BadRequestException(String.format("Unknown template field '%s'", trimmed));
+      }
+      parsed.add(trimmed);
+    }
+    return List.copyOf(parsed);
+  }
+
   private void validateTemplate(Template template) {
     LOG.debug("validateTemplate:: Validating Template with ID : {}", template.getId());
     boolean templateResolverIsSupported = templateResolverAddressesMap.containsKey(template.getTemplateResolver());
@@ -214,7 +705,7 @@ public class TemplateServiceImpl implements TemplateService {
     }
   }
 
-  private void validateTemplateProcessingRequest(TemplateProcessingRequest templateRequest, Template template) {
+  static void validateTemplateProcessingRequest(TemplateProcessingRequest templateRequest, Template template) {
     LOG.debug("validateTemplateProcessingRequest:: Validating template Processing request with Template ID : {}", templateRequest.getTemplateId());
     if (!template.getOutputFormats().contains(templateRequest.getOutputFormat())) {
       LOG.warn("Requested template does not support {} output format", templateRequest.getOutputFormat());
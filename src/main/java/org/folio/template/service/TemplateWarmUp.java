@@ -0,0 +1,194 @@
+package org.folio.template.service;
+
+import static io.vertx.core.Future.succeededFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.jaxrs.model.Template;
+import org.folio.template.dao.TemplateDao;
+import org.folio.template.resolver.LocalTemplateResolvers;
+import org.folio.template.resolver.MustacheTemplateResolver;
+import org.folio.template.resolver.TemplateResolver;
+import org.folio.template.util.ModuleConfig;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Fills the compiled template caches of the resolvers ahead of rendering. The first request of a tenant in
+ * a module instance starts a background warm-up that compiles all templates of the tenant one after another
+ * on a worker thread, so a notice run after a restart finds its templates compiled instead of compiling them
+ * all on the render path. Saved templates are compiled right away for the same reason.
+ * <p>
+ * The compiled template caches are shared by all tenants, so the warm-ups of all tenants in a module
+ * instance share one budget of the cache capacity. A warm-up stops once the next template no longer fits into
+ * what the warm-ups of earlier tenants left, since compiling more would only evict the templates they
+ * compiled; the templates left out are compiled by their first render.
+ */
+public class TemplateWarmUp {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String ENABLED_SETTING = "TEMPLATE_WARM_UP_ENABLED";
+  private static final int PAGE_SIZE = 100;
+  private static final String ALL_TEMPLATES_QUERY = "cql.allRecords=1";
+
+  private static final TemplateWarmUp INSTANCE =
+    new TemplateWarmUp(Boolean.parseBoolean(ModuleConfig.getString(ENABLED_SETTING, "true")));
+
+  private final boolean enabled;
+  private final long cacheCapacity;
+  // cache entries not yet taken by the warm-up of any tenant in this module instance
+  private final AtomicLong remainingCapacity;
+  private final Set<String> warmedUpTenants = ConcurrentHashMap.newKeySet();
+
+  TemplateWarmUp(boolean enabled) {
+    this(enabled, ModuleConfig.getLong(MustacheTemplateResolver.COMPILED_CACHE_SIZE_SETTING,
+      MustacheTemplateResolver.DEFAULT_COMPILED_CACHE_SIZE));
+  }
+
+  TemplateWarmUp(boolean enabled, long cacheCapacity) {
+    this.enabled = enabled;
+    this.cacheCapacity = cacheCapacity;
+    this.remainingCapacity = new AtomicLong(cacheCapacity);
+  }
+
+  public static TemplateWarmUp getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Starts the warm-up of the tenant's templates unless it already ran in this module instance
+   */
+  public void warmUpTenant(Vertx vertx, String tenantId, TemplateDao templateDao,
+    Map<String, String> resolverAddresses) {
+
+    if (!enabled || tenantId == null || !warmedUpTenants.add(tenantId)) {
+      return;
+    }
+    LOG.info("warmUpTenant:: Compiling templates of tenant {}", tenantId);
+    AtomicLong reserved = new AtomicLong();
+    warmUpPage(vertx, tenantId, templateDao, resolverAddresses, 0, reserved)
+      .onSuccess(count -> LOG.info("warmUpTenant:: Compiled {} templates of tenant {}", count, tenantId))
+      .onFailure(e -> {
+        LOG.warn("warmUpTenant:: Warm-up of tenant {} failed, it is retried with the next request", tenantId, e);
+        // the retry compiles the same templates again, they take the same cache entries
+        remainingCapacity.addAndGet(reserved.get());
+        warmedUpTenants.remove(tenantId);
+      });
+  }
+
+  /**
+   * Compiles all localized templates of the template in the background
+   */
+  public Future<Void> precompile(Vertx vertx, Template template, Map<String, String> resolverAddresses) {
+    if (!enabled) {
+      return succeededFuture();
+    }
+    return compile(vertx, template, resolverAddresses)
+      .recover(e -> {
+        LOG.warn("precompile:: Failed to compile template {}: {}", template.getId(), e.getMessage());
+        return succeededFuture();
+      });
+  }
+
+  /**
+   * Compiles all localized templates of the template on a worker thread. The compilation is not ordered,
+   * so templates compiled at the same time use several worker threads.
+   *
+   * @return future failed if a localized template does not compile
+   */
+  public Future<Void> compile(Vertx vertx, Template template, Map<String, String> resolverAddresses) {
+    String address = resolverAddresses.get(template.getTemplateResolver());
+    if (address == null || template.getLocalizedTemplates() == null) {
+      return succeededFuture();
+    }
+    List<JsonObject> contents = template.getLocalizedTemplates().getAdditionalProperties().values().stream()
+      .map(JsonObject::mapFrom)
+      .toList();
+    TemplateResolver resolver = LocalTemplateResolvers.get(vertx, address);
+    return vertx.executeBlocking(() -> contents.stream().map(resolver::precompile).toList(), false)
+      .compose(Future::all)
+      .mapEmpty();
+  }
+
+  /**
+   * Compiles the templates of one page as long as their localized templates fit into the cache capacity left
+   * by the warm-ups of this module instance
+   *
+   * @param reserved cache entries taken by this warm-up so far
+   * @return future with the number of templates compiled so far
+   */
+  private Future<Integer> warmUpPage(Vertx vertx, String tenantId, TemplateDao templateDao,
+    Map<String, String> resolverAddresses, int offset, AtomicLong reserved) {
+
+    return templateDao.getTemplates(ALL_TEMPLATES_QUERY, offset, PAGE_SIZE)
+      .compose(templates -> {
+        List<Template> fitting = new ArrayList<>(templates.size());
+        for (Template template : templates) {
+          long sources = countSources(template);
+          if (!reserve(sources)) {
+            break;
+          }
+          reserved.addAndGet(sources);
+          fitting.add(template);
+        }
+        int count = offset + fitting.size();
+        if (fitting.size() < templates.size()) {
+          LOG.warn("warmUpPage:: Templates of all tenants exceed the compiled template cache of {} entries, "
+            + "compiling only the first {} templates of tenant {}, set {} to compile all", cacheCapacity, count,
+            tenantId, MustacheTemplateResolver.COMPILED_CACHE_SIZE_SETTING);
+          return precompile(vertx, fitting, resolverAddresses).map(v -> count);
+        }
+        return precompile(vertx, fitting, resolverAddresses)
+          .compose(v -> templates.size() < PAGE_SIZE
+            ? succeededFuture(count)
+            : warmUpPage(vertx, tenantId, templateDao, resolverAddresses, offset + PAGE_SIZE, reserved));
+      });
+  }
+
+  /**
+   * Takes cache entries from the capacity shared by the warm-ups of all tenants
+   *
+   * @return false if fewer entries are left
+   */
+  private boolean reserve(long entries) {
+    long remaining;
+    do {
+      remaining = remainingCapacity.get();
+      if (entries > remaining) {
+        return false;
+      }
+    } while (!remainingCapacity.compareAndSet(remaining, remaining - entries));
+    return true;
+  }
+
+  /**
+   * Number of compiled template cache entries of the template, one per localized template property
+   */
+  private static long countSources(Template template) {
+    if (template.getLocalizedTemplates() == null) {
+      return 0;
+    }
+    return template.getLocalizedTemplates().getAdditionalProperties().values().stream()
+      .map(JsonObject::mapFrom)
+      .mapToLong(content -> content.stream().filter(property -> property.getValue() instanceof String).count())
+      .sum();
+  }
+
+  private Future<Void> precompile(Vertx vertx, List<Template> templates, Map<String, String> resolverAddresses) {
+    Future<Void> future = succeededFuture();
+    for (Template template : templates) {
+      future = future.compose(v -> precompile(vertx, template, resolverAddresses));
+    }
+    return future;
+  }
+}
@@ -0,0 +1,40 @@
+package org.folio.template.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content addressing of attachments. The address of an attachment is the SHA-256 of its decoded content,
+ * so the same image generated by different renders has the same address.
+ */
+public final class AttachmentContent {
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final Pattern HASH_PATTERN = Pattern.compile("^[a-f0-9]{64}$");
+
+  private AttachmentContent() {
+  }
+
+  /**
+   * @param data base64 encoded content, as in the data of an attachment
+   * @return SHA-256 of the decoded content in lower case hex
+   */
+  public static String hash(String data) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(decode(data)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+    }
+  }
+
+  public static byte[] decode(String data) {
+    return Base64.getMimeDecoder().decode(data);
+  }
+
+  public static boolean isHash(String value) {
+    return value != null && HASH_PATTERN.matcher(value).matches();
+  }
+}
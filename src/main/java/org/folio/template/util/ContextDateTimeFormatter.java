@@ -45,33 +45,70 @@ public class ContextDateTimeFormatter {
 
     for (Map.Entry<String, Object> entry : contextMap.entrySet()) {
       String token = entry.getKey();
-      Optional<DateFormat> dateFormat = getDateFormatForToken(token, languageTag, zoneId);
-      if (dateFormat.isPresent() && objectIsNonBlankString(entry.getValue())) {
-        try {
-          LOG.warn("Formatted date for token : {}", token);
-          ZonedDateTime parsedDateTime = ZonedDateTime.parse((String) entry.getValue(), ISO_DATE_TIME_FORMATTER);
-          String formattedDate = dateFormat.get().format(parsedDateTime.toInstant().toEpochMilli());
-          parser.setValueAt(token, formattedDate);
-        } catch (DateTimeParseException e) {
-          // value is not a valid date
-          LOG.warn("Error formatting date for token : {}", token, e);
-        }
+      if (objectIsNonBlankString(entry.getValue())) {
+        formatDate(token, (String) entry.getValue(), languageTag, zoneId)
+          .ifPresent(formattedDate -> parser.setValueAt(token, formattedDate));
       }
     }
   }
 
+  /**
+   * Formats a date value the way it is formatted in the context under the given token: {@code *Date} as
+   * a short date, {@code *DateTime} as a short date and time, {@code *DetailedDateTime} as a long date and
+   * a short time
+   *
+   * @return formatted date, or empty if the token is not a date token or the value is not a valid date
+   */
+  public static Optional<String> formatDate(String token, String value, String languageTag, String zoneId) {
+    Optional<DateFormat> dateFormat = getDateFormatForToken(token, languageTag, zoneId);
+    if (dateFormat.isEmpty()) {
+      return Optional.empty();
+    }
+    return parseDateTime(value)
+      .map(parsedDateTime -> {
+        LOG.debug("formatDate:: Formatted date for token : {}", token);
+        return dateFormat.get().format(parsedDateTime.toInstant().toEpochMilli());
+      });
+  }
+
+  /**
+   * Parses an ISO-8601 date-time with an offset
+   */
+  public static Optional<ZonedDateTime> parseDateTime(String value) {
+    try {
+      return Optional.of(ZonedDateTime.parse(value, ISO_DATE_TIME_FORMATTER));
+    } catch (DateTimeParseException e) {
+      // value is not a valid date
+      LOG.warn("parseDateTime:: Error parsing date : {}", value, e);
+      return Optional.empty();
+    }
+  }
+
   private static Optional<DateFormat> getDateFormatForToken(String token, String languageTag, String zoneId) {
     LOG.debug("getDateFormatForToken:: Retrieving date format for token : {}", token);
-    DateFormat i18NDateFormatter = null;
+    return getDateStyle(token).map(style -> getDateFormatForStyle(style, languageTag, zoneId));
+  }
+
+  /**
+   * Returns the date style of a token, the suffix that decides how its value is formatted
+   */
+  static Optional<String> getDateStyle(String token) {
     if (endsWithIgnoreCase(token, DETAILED_DATE_TIME_SUFFIX)) {
-      i18NDateFormatter = getDateFormat(DateFormat.LONG, DateFormat.SHORT, languageTag, zoneId);
+      return Optional.of(DETAILED_DATE_TIME_SUFFIX);
     } else if (endsWithIgnoreCase(token, DATE_SUFFIX)) {
-      i18NDateFormatter = getDateFormat(DateFormat.SHORT, DateFormat.NONE, languageTag, zoneId);
+      return Optional.of(DATE_SUFFIX);
     } else if (endsWithIgnoreCase(token, DATE_TIME_SUFFIX)) {
-      i18NDateFormatter = getDateFormat(DateFormat.SHORT, DateFormat.SHORT, languageTag, zoneId);
+      return Optional.of(DATE_TIME_SUFFIX);
     }
-    LOG.info("getDateFormatForToken:: Retrieved date format for token : {} and the result is : {}", token, Optional.ofNullable(i18NDateFormatter));
-    return Optional.ofNullable(i18NDateFormatter);
+    return Optional.empty();
+  }
+
+  static DateFormat getDateFormatForStyle(String style, String languageTag, String zoneId) {
+    return switch (style) {
+      case DETAILED_DATE_TIME_SUFFIX -> getDateFormat(DateFormat.LONG, DateFormat.SHORT, languageTag, zoneId);
+      case DATE_TIME_SUFFIX -> getDateFormat(DateFormat.SHORT, DateFormat.SHORT, languageTag, zoneId);
+      default -> getDateFormat(DateFormat.SHORT, DateFormat.NONE, languageTag, zoneId);
+    };
   }
 
   private static DateFormat getDateFormat(int dateStyle, int timeStyle, String languageTag, String zoneId) {
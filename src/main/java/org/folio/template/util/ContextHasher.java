@@ -0,0 +1,86 @@
+package org.folio.template.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Computes a stable digest of a template context. Object keys are hashed in sorted order,
+ * so two contexts with the same content produce the same digest regardless of key order.
+ */
+public final class ContextHasher {
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final byte NULL_TAG = 'z';
+  private static final byte STRING_TAG = 's';
+  private static final byte NUMBER_TAG = 'n';
+  private static final byte BOOLEAN_TAG = 'b';
+  private static final byte OBJECT_START = '{';
+  private static final byte OBJECT_END = '}';
+  private static final byte ARRAY_START = '[';
+  private static final byte ARRAY_END = ']';
+
+  private ContextHasher() {
+  }
+
+  public static String hash(JsonObject context) {
+    MessageDigest digest = newDigest();
+    update(digest, context == null ? null : context.getMap());
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static void update(MessageDigest digest, Object value) {
+    if (value == null) {
+      digest.update(NULL_TAG);
+    } else if (value instanceof JsonObject jsonObject) {
+      update(digest, jsonObject.getMap());
+    } else if (value instanceof JsonArray jsonArray) {
+      update(digest, jsonArray.getList());
+    } else if (value instanceof Map<?, ?> map) {
+      digest.update(OBJECT_START);
+      map.entrySet().stream()
+        .sorted(Comparator.comparing(entry -> String.valueOf(entry.getKey())))
+        .forEach(entry -> {
+          updateString(digest, String.valueOf(entry.getKey()));
+          update(digest, entry.getValue());
+        });
+      digest.update(OBJECT_END);
+    } else if (value instanceof List<?> list) {
+      digest.update(ARRAY_START);
+      list.forEach(element -> update(digest, element));
+      digest.update(ARRAY_END);
+    } else if (value instanceof Number) {
+      digest.update(NUMBER_TAG);
+      updateString(digest, value.toString());
+    } else if (value instanceof Boolean) {
+      digest.update(BOOLEAN_TAG);
+      updateString(digest, value.toString());
+    } else {
+      digest.update(STRING_TAG);
+      updateString(digest, value.toString());
+    }
+  }
+
+  private static void updateString(MessageDigest digest, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    // length prefix keeps adjacent strings from being ambiguous
+    digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+    digest.update((byte) ':');
+    digest.update(bytes);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+    }
+  }
+}
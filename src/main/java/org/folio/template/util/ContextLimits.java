@@ -0,0 +1,92 @@
+package org.folio.template.util;
+
+import java.util.List;
+import java.util.Map;
+
+import org.folio.template.ContextTooLargeException;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Rejects template contexts that are too large or too deeply nested to be rendered safely. The size is the
+ * approximate length of the JSON encoded context in characters, measured in one traversal that stops as soon
+ * as a limit is exceeded.
+ */
+public final class ContextLimits {
+
+  public static final String MAX_SIZE_SETTING = "CONTEXT_MAX_SIZE";
+  public static final String MAX_DEPTH_SETTING = "CONTEXT_MAX_DEPTH";
+  private static final long DEFAULT_MAX_SIZE = 10_000_000;
+  private static final int DEFAULT_MAX_DEPTH = 64;
+  // quotes, colon and comma around a key or a string value
+  private static final int SEPARATOR_SIZE = 3;
+
+  private static final ContextLimits INSTANCE = new ContextLimits(
+    ModuleConfig.getLong(MAX_SIZE_SETTING, DEFAULT_MAX_SIZE),
+    ModuleConfig.getInt(MAX_DEPTH_SETTING, DEFAULT_MAX_DEPTH));
+
+  private final long maxSize;
+  private final int maxDepth;
+
+  ContextLimits(long maxSize, int maxDepth) {
+    this.maxSize = maxSize;
+    this.maxDepth = maxDepth;
+  }
+
+  public static ContextLimits getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @throws ContextTooLargeException if the context exceeds the size or the depth limit
+   */
+  public void check(JsonObject context) {
+    if (context != null) {
+      measure(context.getMap(), 1, 0);
+    }
+  }
+
+  private long measure(Object value, int depth, long size) {
+    if (value instanceof JsonObject jsonObject) {
+      return measure(jsonObject.getMap(), depth, size);
+    }
+    if (value instanceof JsonArray jsonArray) {
+      return measure(jsonArray.getList(), depth, size);
+    }
+    if (value instanceof Map<?, ?> map) {
+      checkDepth(depth);
+      size = add(size, 2);
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        size = add(size, String.valueOf(entry.getKey()).length() + SEPARATOR_SIZE);
+        size = measure(entry.getValue(), depth + 1, size);
+      }
+      return size;
+    }
+    if (value instanceof List<?> list) {
+      checkDepth(depth);
+      size = add(size, 2);
+      for (Object element : list) {
+        size = measure(element, depth + 1, size);
+      }
+      return size;
+    }
+    return add(size, String.valueOf(value).length() + SEPARATOR_SIZE);
+  }
+
+  private void checkDepth(int depth) {
+    if (maxDepth > 0 && depth > maxDepth) {
+      throw new ContextTooLargeException(String.format(
+        "Template context is nested deeper than the maximum of %d levels", maxDepth));
+    }
+  }
+
+  private long add(long size, long increment) {
+    long newSize = size + increment;
+    if (maxSize > 0 && newSize > maxSize) {
+      throw new ContextTooLargeException(String.format(
+        "Template context exceeds the maximum size of %d characters", maxSize));
+    }
+    return newSize;
+  }
+}
@@ -0,0 +1,95 @@
+package org.folio.template.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Values computed for one render on top of a shared template context. The base context is never modified:
+ * applying the overlay copies only the objects and arrays on the paths to the overlay values, all other parts
+ * of the base context are shared with the result.
+ */
+public final class ContextOverlay {
+
+  private final List<Entry> entries = new ArrayList<>();
+
+  private record Entry(List<Object> path, Object value) {
+  }
+
+  /**
+   * Sets a value in the overlay
+   *
+   * @param path  object keys and array indexes leading to the value, all but the last must exist in the base
+   * @param value value to set
+   */
+  public void put(List<Object> path, Object value) {
+    entries.add(new Entry(List.copyOf(path), value));
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  /**
+   * Returns the base context with the overlay values set, or the base context itself if the overlay is empty
+   */
+  public JsonObject applyTo(JsonObject base) {
+    if (entries.isEmpty()) {
+      return base;
+    }
+    Map<String, Object> root = new LinkedHashMap<>(base.getMap());
+    Set<Object> copies = Collections.newSetFromMap(new IdentityHashMap<>());
+    copies.add(root);
+    for (Entry entry : entries) {
+      Object container = root;
+      List<Object> path = entry.path();
+      for (int i = 0; i < path.size() - 1; i++) {
+        Object child = get(container, path.get(i));
+        if (!copies.contains(child)) {
+          child = copyOf(child);
+          copies.add(child);
+          set(container, path.get(i), child);
+        }
+        container = child;
+      }
+      set(container, path.get(path.size() - 1), entry.value());
+    }
+    return new JsonObject(root);
+  }
+
+  private static Object get(Object container, Object segment) {
+    if (container instanceof Map<?, ?> map) {
+      return map.get(segment);
+    }
+    return ((List<?>) container).get((Integer) segment);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void set(Object container, Object segment, Object value) {
+    if (container instanceof Map<?, ?> map) {
+      ((Map<String, Object>) map).put((String) segment, value);
+    } else {
+      ((List<Object>) container).set((Integer) segment, value);
+    }
+  }
+
+  private static Object copyOf(Object value) {
+    if (value instanceof JsonObject jsonObject) {
+      return new LinkedHashMap<>(jsonObject.getMap());
+    } else if (value instanceof JsonArray jsonArray) {
+      return new ArrayList<>(jsonArray.getList());
+    } else if (value instanceof Map<?, ?> map) {
+      return new LinkedHashMap<>(map);
+    } else if (value instanceof List<?> list) {
+      return new ArrayList<>(list);
+    }
+    throw new IllegalArgumentException("Overlay path does not lead through an object or array: " + value);
+  }
+}
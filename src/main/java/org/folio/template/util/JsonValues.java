@@ -0,0 +1,72 @@
+package org.folio.template.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Converts Vert.x JSON values into plain maps and lists, which template engines can traverse. Containers
+ * are copied only when one of their descendants had to be converted, so a context that already consists of
+ * plain maps and lists is returned as is.
+ */
+public final class JsonValues {
+
+  private JsonValues() {
+  }
+
+  public static Map<String, Object> toPlainMap(JsonObject jsonObject) {
+    return jsonObject == null ? null : toPlainMap(jsonObject.getMap());
+  }
+
+  public static Object toPlain(Object value) {
+    if (value instanceof JsonObject jsonObject) {
+      return toPlainMap(jsonObject.getMap());
+    }
+    if (value instanceof JsonArray jsonArray) {
+      return toPlainList(jsonArray.getList());
+    }
+    if (value instanceof Map<?, ?> map) {
+      return toPlainMap(map);
+    }
+    if (value instanceof List<?> list) {
+      return toPlainList(list);
+    }
+    return value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> toPlainMap(Map<?, ?> map) {
+    Map<String, Object> copy = null;
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      Object value = entry.getValue();
+      Object plainValue = toPlain(value);
+      if (plainValue != value) {
+        if (copy == null) {
+          copy = new LinkedHashMap<>((Map<String, Object>) map);
+        }
+        copy.put(String.valueOf(entry.getKey()), plainValue);
+      }
+    }
+    return copy != null ? copy : (Map<String, Object>) map;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> toPlainList(List<?> list) {
+    List<Object> copy = null;
+    for (int i = 0; i < list.size(); i++) {
+      Object value = list.get(i);
+      Object plainValue = toPlain(value);
+      if (plainValue != value) {
+        if (copy == null) {
+          copy = new ArrayList<>(list);
+        }
+        copy.set(i, plainValue);
+      }
+    }
+    return copy != null ? copy : (List<Object>) list;
+  }
+}
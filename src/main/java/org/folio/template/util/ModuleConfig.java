@@ -0,0 +1,38 @@
+package org.folio.template.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads module settings from system properties, falling back to environment variables
+ */
+public final class ModuleConfig {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  private ModuleConfig() {
+  }
+
+  public static String getString(String name, String defaultValue) {
+    String value = System.getProperty(name, System.getenv(name));
+    return StringUtils.isBlank(value) ? defaultValue : value.trim();
+  }
+
+  public static int getInt(String name, int defaultValue) {
+    return (int) getLong(name, defaultValue);
+  }
+
+  public static long getLong(String name, long defaultValue) {
+    String value = getString(name, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      LOG.warn("getLong:: Invalid value '{}' for setting {}, using default {}", value, name, defaultValue);
+      return defaultValue;
+    }
+  }
+}
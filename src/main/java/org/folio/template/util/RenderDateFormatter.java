@@ -0,0 +1,48 @@
+package org.folio.template.util;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.ibm.icu.text.DateFormat;
+
+/**
+ * Formats context dates of a single render on demand. Date formats and formatted values are memoized for
+ * the render, so a date used many times is parsed and formatted once. Not thread-safe, create one per render.
+ */
+public class RenderDateFormatter {
+
+  private final String languageTag;
+  private final String zoneId;
+  private final Map<String, DateFormat> dateFormats = new HashMap<>();
+  private final Map<String, String> formattedValues = new HashMap<>();
+
+  public RenderDateFormatter(String languageTag, String zoneId) {
+    this.languageTag = languageTag;
+    this.zoneId = zoneId;
+  }
+
+  /**
+   * Formats the value the way {@link ContextDateTimeFormatter#formatDatesInContext} formats the token
+   *
+   * @return formatted date, or the value itself if the token is not a date token or the value is not a date
+   */
+  public String format(String token, String value) {
+    Optional<String> dateStyle = ContextDateTimeFormatter.getDateStyle(token);
+    if (dateStyle.isEmpty() || isBlank(value)) {
+      return value;
+    }
+    String style = dateStyle.get();
+    return formattedValues.computeIfAbsent(style + ':' + value, key ->
+      ContextDateTimeFormatter.parseDateTime(value)
+        .map(dateTime -> getDateFormat(style).format(dateTime.toInstant().toEpochMilli()))
+        .orElse(value));
+  }
+
+  private DateFormat getDateFormat(String style) {
+    return dateFormats.computeIfAbsent(style, s ->
+      ContextDateTimeFormatter.getDateFormatForStyle(s, languageTag, zoneId));
+  }
+}
@@ -0,0 +1,206 @@
+package org.folio.template.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.apache.commons.collections4.map.CaseInsensitiveMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.tools.utils.BinaryOutStream;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+/**
+ * Compresses JSON response bodies with the encoding negotiated from {@code Accept-Encoding}. Rendered
+ * notices, with their HTML and base64 barcode images, shrink to a fraction of their size. Bodies below
+ * the size threshold are sent as they are, because compressing them costs more CPU than it saves bytes.
+ * A compression level of 0 disables compression. Compressed responses carry entity tags with the content
+ * coding appended, see {@link TemplateETag}.
+ */
+public class ResponseCompression {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  public static final String LEVEL_SETTING = "RESPONSE_COMPRESSION_LEVEL";
+  public static final String MIN_SIZE_SETTING = "RESPONSE_COMPRESSION_MIN_SIZE";
+  static final String GZIP = "gzip";
+  static final String DEFLATE = "deflate";
+  private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+  private static final ResponseCompression INSTANCE = new ResponseCompression(
+    ModuleConfig.getInt(LEVEL_SETTING, 6), ModuleConfig.getInt(MIN_SIZE_SETTING, 1024));
+
+  private final int level;
+  private final int minSize;
+
+  ResponseCompression(int level, int minSize) {
+    this.level = Math.min(level, Deflater.BEST_COMPRESSION);
+    this.minSize = minSize;
+  }
+
+  public static ResponseCompression getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Replaces the body of a successful response with its compressed form when the client accepts gzip
+   * or deflate and the body is at least the size threshold. Serializing and compressing a large body
+   * takes longer than an event loop turn should, so both run on a worker thread.
+   *
+   * @param vertx        vertx
+   * @param response     response built by the resource
+   * @param okapiHeaders headers of the request
+   * @return future with the compressed response, or the given response when it is not compressed
+   */
+  public Future<Response> compress(Vertx vertx, Response response, Map<String, String> okapiHeaders) {
+    if (level <= 0 || !response.hasEntity()
+      || response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+      return Future.succeededFuture(response);
+    }
+    String encoding = negotiate(new CaseInsensitiveMap<>(okapiHeaders).get(ACCEPT_ENCODING));
+    if (encoding == null) {
+      return Future.succeededFuture(Response.fromResponse(response)
+        .header(HttpHeaders.VARY, ACCEPT_ENCODING)
+        .build());
+    }
+    return vertx.executeBlocking(() -> compress(response, encoding), false);
+  }
+
+  /**
+   * Serializes the body once and compresses it with the encoding when it is at least the size threshold.
+   * A compressed response carries the entity tag of the compressed representation.
+   */
+  Response compress(Response response, String encoding) {
+    byte[] body = toBytes(response.getEntity());
+    if (body.length < minSize) {
+      // the serialized body is sent as it is, so it is not serialized again
+      return Response.fromResponse(response)
+        .entity(new String(body, UTF_8))
+        .header(HttpHeaders.VARY, ACCEPT_ENCODING)
+        .build();
+    }
+    BinaryOutStream compressed = new BinaryOutStream();
+    compressed.setData(encode(body, encoding));
+    LOG.debug("compress:: Compressed {} bytes to {} bytes with {}", body.length, compressed.getData().length,
+      encoding);
+    Response.ResponseBuilder builder = Response.fromResponse(response)
+      .entity(compressed)
+      .header(HttpHeaders.CONTENT_ENCODING, encoding)
+      .header(HttpHeaders.VARY, ACCEPT_ENCODING);
+    String etag = response.getHeaderString(HttpHeaders.ETAG);
+    if (etag != null) {
+      builder.header(HttpHeaders.ETAG, null)
+        .header(HttpHeaders.ETAG, TemplateETag.withCoding(etag, encoding));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Picks the supported encoding with the highest quality value, gzip wins ties. A coding listed more than
+   * once counts with its highest quality value.
+   *
+   * @param acceptEncoding value of the {@code Accept-Encoding} header
+   * @return {@code gzip}, {@code deflate} or null when neither is acceptable
+   */
+  static String negotiate(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    double gzip = 0;
+    double deflate = 0;
+    double any = 0;
+    boolean gzipListed = false;
+    boolean deflateListed = false;
+    for (String part : acceptEncoding.split(",")) {
+      String[] tokens = part.split(";");
+      String coding = tokens[0].trim().toLowerCase();
+      double quality = quality(tokens);
+      switch (coding) {
+        case GZIP, "x-gzip" -> {
+          gzip = Math.max(gzip, quality);
+          gzipListed = true;
+        }
+        case DEFLATE -> {
+          deflate = Math.max(deflate, quality);
+          deflateListed = true;
+        }
+        case "*" -> any = Math.max(any, quality);
+        default -> {
+          // encodings without an encoder here, e.g. br, are left to the identity fallback
+        }
+      }
+    }
+    gzip = gzipListed ? gzip : any;
+    deflate = deflateListed ? deflate : any;
+    if (gzip <= 0 && deflate <= 0) {
+      return null;
+    }
+    return gzip >= deflate ? GZIP : DEFLATE;
+  }
+
+  byte[] encode(byte[] body, String encoding) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+    try (OutputStream out = GZIP.equals(encoding) ? new LevelGzipOutputStream(bytes, level)
+      : new LevelDeflaterOutputStream(bytes, level)) {
+      out.write(body);
+    } catch (IOException e) {
+      // writing to memory does not fail
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static double quality(String[] tokens) {
+    for (int i = 1; i < tokens.length; i++) {
+      String parameter = tokens[i].trim();
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  private static byte[] toBytes(Object entity) {
+    if (entity instanceof String string) {
+      return string.getBytes(UTF_8);
+    }
+    try {
+      return PostgresClient.pojo2JsonObject(entity).encode().getBytes(UTF_8);
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to serialize response entity", e);
+    }
+  }
+
+  // the deflater of the JDK streams is only reachable from subclasses, the streams end it on close
+  private static final class LevelGzipOutputStream extends GZIPOutputStream {
+
+    LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+      super(out);
+      def.setLevel(level);
+    }
+  }
+
+  private static final class LevelDeflaterOutputStream extends DeflaterOutputStream {
+
+    LevelDeflaterOutputStream(OutputStream out, int level) {
+      super(out);
+      def.setLevel(level);
+    }
+  }
+}
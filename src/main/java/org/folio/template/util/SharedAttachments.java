@@ -0,0 +1,61 @@
+package org.folio.template.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.folio.rest.jaxrs.model.Attachment;
+import org.folio.rest.jaxrs.model.Result;
+import org.folio.rest.jaxrs.model.TemplateProcessingResult;
+
+/**
+ * Deduplicates the attachments of batch responses. The same barcode image is generated for every result
+ * that shows the barcode, so a batch response lists each attachment once in a table keyed by content id
+ * and the results only reference the content ids of their attachments.
+ */
+public final class SharedAttachments {
+
+  private SharedAttachments() {
+  }
+
+  /**
+   * Moves the attachments of the results into one table. An attachment without a content id, or whose
+   * content id is already taken by a different attachment, stays in its result.
+   *
+   * @param results results of one batch response, modified in place
+   * @return distinct attachments of the results in the order they first appear
+   */
+  public static List<Attachment> extract(List<TemplateProcessingResult> results) {
+    Map<String, Attachment> shared = new LinkedHashMap<>();
+    for (TemplateProcessingResult processingResult : results) {
+      Result result = processingResult.getResult();
+      if (result == null || result.getAttachments() == null || result.getAttachments().isEmpty()) {
+        continue;
+      }
+      List<Attachment> inline = new ArrayList<>();
+      List<String> contentIds = new ArrayList<>();
+      for (Attachment attachment : result.getAttachments()) {
+        String contentId = attachment.getContentId();
+        Attachment existing = contentId == null ? null : shared.putIfAbsent(contentId, attachment);
+        if (contentId == null || existing != null && !isSameContent(existing, attachment)) {
+          inline.add(attachment);
+        } else {
+          contentIds.add(contentId);
+        }
+      }
+      result.setAttachments(inline);
+      processingResult.setAttachmentContentIds(contentIds);
+    }
+    return new ArrayList<>(shared.values());
+  }
+
+  private static boolean isSameContent(Attachment first, Attachment second) {
+    return Objects.equals(first.getData(), second.getData())
+      && Objects.equals(first.getHash(), second.getHash())
+      && Objects.equals(first.getContentType(), second.getContentType())
+      && Objects.equals(first.getName(), second.getName())
+      && Objects.equals(first.getDisposition(), second.getDisposition());
+  }
+}
@@ -0,0 +1,67 @@
+package org.folio.template.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Result of scanning a template source for placeholders. An analysis is immutable, so it is shared by all
+ * renders of the same template source.
+ */
+public final class TemplateAnalysis {
+
+  private static final Logger LOG = LogManager.getLogger("mod-template-engine");
+
+  private static final Pattern TOKEN_PATTERN = Pattern.compile("\\{\\{([.a-zA-Z]+)}}");
+
+  private final Set<String> tokens;
+  private final boolean barcodeImageTokens;
+
+  /**
+   * Header and body of a localized template
+   */
+  public record Source(String header, String body) {
+  }
+
+  private TemplateAnalysis(Set<String> tokens) {
+    this.tokens = tokens;
+    this.barcodeImageTokens = tokens.stream().anyMatch(TemplateContextPreProcessor::isBarcodeImageToken);
+  }
+
+  public static TemplateAnalysis analyze(Source source) {
+    LOG.debug("analyze:: Retrieving tokens from template");
+    Set<String> tokens = new HashSet<>();
+    addTokens(source.header(), tokens);
+    addTokens(source.body(), tokens);
+    return new TemplateAnalysis(Collections.unmodifiableSet(tokens));
+  }
+
+  private static void addTokens(String text, Set<String> tokens) {
+    if (text == null) {
+      return;
+    }
+    Matcher matcher = TOKEN_PATTERN.matcher(text);
+    while (matcher.find()) {
+      tokens.add(matcher.group(1));
+    }
+  }
+
+  /**
+   * Simple {@code {{path}}} tokens of the template
+   */
+  public Set<String> getTokens() {
+    return tokens;
+  }
+
+  /**
+   * Whether the template renders barcode images, no images are generated for templates without them
+   */
+  public boolean hasBarcodeImageTokens() {
+    return barcodeImageTokens;
+  }
+}
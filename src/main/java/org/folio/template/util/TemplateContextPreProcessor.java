@@ -1,53 +1,42 @@
 package org.folio.template.util;
 
-import com.github.wnameless.json.flattener.JsonFlattener;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.rest.jaxrs.model.Attachment;
 import org.folio.rest.jaxrs.model.LocalizedTemplatesProperty;
-import org.folio.rest.tools.parser.JsonPathParser;
-import org.folio.template.client.LocaleSettings;
+import org.folio.template.cache.TemplateAnalysisCache;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static javax.mail.Part.INLINE;
-import static org.folio.template.util.ContextDateTimeFormatter.formatDatesInContext;
 
 public class TemplateContextPreProcessor {
   private static final Logger LOG = LogManager.getLogger("mod-template-engine");
   private static final String ATTACHMENT_CONTENT_ID_TEMPLATE = "<%s>";
   private static final String ATTACHMENT_NAME_TEMPLATE = "barcode_%s";
   private static final String HTML_IMG_TEMPLATE = "<img src='cid:%s' alt='%s'>";
-  private static final String TOKEN_TEMPLATE_REGULAR = "{{%s}}";
-  private static final String TOKEN_TEMPLATE_HTML = "{{{%s}}}";
-  private static final String TOKEN_REGEX = "\\{\\{([.a-zA-Z]+)}}";
-  private static final Pattern TOKEN_PATTERN = Pattern.compile(TOKEN_REGEX);
   private static final String CONTENT_TYPE_PNG = "image/png";
 
-  private static final String SUFFIX_DATE = "Date";
-  private static final String SUFFIX_TIME = "Time";
   private static final List<String> BARCODE_IMAGE_SUFFIXES = Arrays.asList(".barcode", "Hrid");
   private static final String SUFFIX_IMAGE = "Image";
 
-  private final LocalizedTemplatesProperty template;
   private final JsonObject context;
-  private final LocaleSettings config;
   private final Map<String, Attachment> attachments;
-  private final JsonPathParser jsonParser;
-  private final Set<String> templateTokens;
-
-  public TemplateContextPreProcessor(
-      LocalizedTemplatesProperty template, JsonObject context, LocaleSettings config) {
-    this.template = template;
+  private final ContextOverlay overlay;
+  private final TemplateAnalysis analysis;
+
+  /**
+   * @param template template to render
+   * @param context  context of the render, it is not modified
+   */
+  public TemplateContextPreProcessor(LocalizedTemplatesProperty template, JsonObject context) {
     this.context = context;
-    this.config = config;
     this.attachments = new LinkedHashMap<>();
-    this.jsonParser = new JsonPathParser(this.context);
-    this.templateTokens = Collections.unmodifiableSet(getTokensFromTemplate());
+    this.overlay = new ContextOverlay();
+    this.analysis = TemplateAnalysisCache.getInstance().get(template);
   }
 
   public List<Attachment> getAttachments() {
@@ -56,92 +45,134 @@ public class TemplateContextPreProcessor {
     return new ArrayList<>(attachments.values());
   }
 
+  /**
+   * Returns the context to render: the original context with the computed values laid over it. Only the
+   * objects and arrays containing computed values are copied, the rest is shared with the original context.
+   */
+  public JsonObject getContext() {
+    return overlay.applyTo(context);
+  }
+
+  /**
+   * Computes barcode images for the barcode image tokens of the template, dates are formatted by the
+   * template resolvers when they are rendered
+   */
   public void process() {
     LOG.debug("process:: Started processing");
-    enrichContextWithDateTimes();
-    formatDatesInContext(context, config.getLanguageTag(), config.getTimeZoneId());
     handleBarcodeImageTokens();
   }
 
-  void enrichContextWithDateTimes() {
-    LOG.debug("enrichContextWithDateTimes:: Enriching context with date and time");
-    final Map<String, Object> contextMap = getContextMap();
-    contextMap.keySet().stream()
-      .filter(key -> key.endsWith(SUFFIX_DATE))
-      .filter(key -> objectIsNonBlankString(contextMap.get(key)))
-      .filter(key -> !contextMap.containsKey(key + SUFFIX_TIME))
-      .forEach(key -> jsonParser.setValueAt(key + SUFFIX_TIME, contextMap.get(key)));
-  }
-
   void handleBarcodeImageTokens() {
     LOG.debug("handleBarcodeImageTokens:: Handling barcode image tokens");
-    Map<String, Object> contextMap = getContextMap();
-    Set<String> newTokens = new HashSet<>();
-
-    contextMap.entrySet().stream()
-      .filter(e -> isBarcodeImageSource(e.getKey()))
-      .filter(e -> objectIsNonBlankString(e.getValue()))
-      .map(e -> new Token(e.getKey(), (String) e.getValue()))
-      .filter(token -> templateTokens.contains(token.shortPath() + SUFFIX_IMAGE))
+    List<Token> tokens = new ArrayList<>();
+    Map<List<Object>, Object> suppliedImages = new LinkedHashMap<>();
+    collectBarcodeTokens(context.getMap(), new ArrayList<>(), "", tokens, suppliedImages);
+    // resolvers render barcode image variables unescaped however they are written, e.g. {{ item.barcodeImage }}
+    // or {{item2.barcodeImage}}, which the template analysis does not find, so supplied image values are
+    // escaped whatever the analysis says and only generated HTML reaches the resolvers as is
+    suppliedImages.forEach((path, value) -> {
+      String text = String.valueOf(JsonValues.toPlain(value));
+      String escaped = escapeHtml(text);
+      if (!escaped.equals(text)) {
+        overlay.put(path, escaped);
+      }
+    });
+    if (!analysis.hasBarcodeImageTokens()) {
+      return;
+    }
+    tokens.stream()
+      .filter(token -> analysis.getTokens().contains(token.shortPath() + SUFFIX_IMAGE))
       .forEach(token -> {
         final String imgContentId =  String.format(ATTACHMENT_NAME_TEMPLATE, token.value());
-        final String imageTokenKey = token.fullPath() + SUFFIX_IMAGE;
-        final String imageTokenValue = String.format(HTML_IMG_TEMPLATE, imgContentId, imgContentId);
+        final String escapedContentId = escapeHtml(imgContentId);
+        final String imageTokenValue = String.format(HTML_IMG_TEMPLATE, escapedContentId, escapedContentId);
 
-        jsonParser.setValueAt(imageTokenKey, imageTokenValue);
+        overlay.put(token.imagePath(), imageTokenValue);
         createAttachment(token.value(), imgContentId);
-        newTokens.add(token.shortPath() + SUFFIX_IMAGE);
       });
-
-    // For HTML to be interpreted correctly by Mustache,
-    // tokens must be wrapped in triple curly braces: "{{{...}}}"
-    fixTokensWithHtmlValue(newTokens);
   }
 
-  private boolean isBarcodeImageSource(String tokenKey) {
-    return BARCODE_IMAGE_SUFFIXES
-      .stream()
-      .anyMatch(tokenKey::endsWith);
+  /**
+   * Walks the context looking for non-blank barcode values and for barcode image values supplied with the
+   * context, the tokens are named the way {@code JsonFlattener} names flattened keys
+   */
+  private static void collectBarcodeTokens(Object value, List<Object> path, String fullPath, List<Token> tokens,
+    Map<List<Object>, Object> suppliedImages) {
+
+    if (!path.isEmpty() && isBarcodeImageToken(fullPath)) {
+      if (value != null) {
+        suppliedImages.put(List.copyOf(path), value);
+      }
+      return;
+    }
+    if (value instanceof JsonObject jsonObject) {
+      value = jsonObject.getMap();
+    } else if (value instanceof JsonArray jsonArray) {
+      value = jsonArray.getList();
+    }
+    if (value instanceof Map<?, ?> map) {
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        String key = String.valueOf(entry.getKey());
+        String childPath = fullPath.isEmpty() ? key : fullPath + "." + key;
+        path.add(key);
+        collectBarcodeTokens(entry.getValue(), path, childPath, tokens, suppliedImages);
+        path.remove(path.size() - 1);
+      }
+    } else if (value instanceof List<?> list) {
+      for (int i = 0; i < list.size(); i++) {
+        path.add(i);
+        collectBarcodeTokens(list.get(i), path, fullPath + "[" + i + "]", tokens, suppliedImages);
+        path.remove(path.size() - 1);
+      }
+    } else if (isBarcodeImageSource(fullPath) && objectIsNonBlankString(value)) {
+      tokens.add(new Token(fullPath, path, (String) value));
+    }
   }
 
-  private boolean objectIsNonBlankString(Object obj) {
-    return obj instanceof String
-        && StringUtils.isNoneBlank((String) obj);
+  private static String escapeHtml(String text) {
+    StringBuilder escaped = null;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      String entity = switch (c) {
+        case '&' -> "&amp;";
+        case '<' -> "&lt;";
+        case '>' -> "&gt;";
+        case '"' -> "&quot;";
+        case '\'' -> "&#39;";
+        default -> null;
+      };
+      if (entity != null && escaped == null) {
+        escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+      }
+      if (escaped != null) {
+        if (entity != null) {
+          escaped.append(entity);
+        } else {
+          escaped.append(c);
+        }
+      }
+    }
+    return escaped == null ? text : escaped.toString();
   }
 
-  private Map<String, Object> getContextMap() {
-    return JsonFlattener.flattenAsMap(context.encode());
+  /**
+   * Barcode image tokens hold generated HTML, template resolvers must not escape their values. Values of
+   * these tokens supplied with the context are escaped by {@link #process()} before rendering.
+   */
+  public static boolean isBarcodeImageToken(String token) {
+    return token.endsWith(SUFFIX_IMAGE)
+      && isBarcodeImageSource(token.substring(0, token.length() - SUFFIX_IMAGE.length()));
   }
 
-  private Set<String> getTokensFromTemplate() {
-    LOG.debug("getTokensFromTemplate:: Retrieving tokens from template");
-    Set<String> tokens = new HashSet<>();
-    Matcher matcher = TOKEN_PATTERN.matcher(template.getHeader() + template.getBody());
-    while (matcher.find()) {
-      tokens.add(matcher.group(1));
-    }
-    LOG.info("getTokensFromTemplate:: Retrieved tokens from template");
-    return tokens;
+  private static boolean isBarcodeImageSource(String tokenKey) {
+    return BARCODE_IMAGE_SUFFIXES
+      .stream()
+      .anyMatch(tokenKey::endsWith);
   }
 
-  private void fixTokensWithHtmlValue(Set<String> keysFromContext) {
-    LOG.debug("fixTokensWithHtmlValue:: Fixing tokens with HTML value");
-    if (keysFromContext.isEmpty()) {
-      LOG.warn("Keys from Context are empty");
-      return;
-    }
-    String header = template.getHeader();
-    String body = template.getBody();
-    for (String key : keysFromContext) {
-      String existingToken = String.format(TOKEN_TEMPLATE_REGULAR, key);
-      String replacementToken = String.format(TOKEN_TEMPLATE_HTML, key);
-
-      String pattern = Pattern.quote(existingToken);
-      header = header.replaceAll(pattern, replacementToken);
-      body = body.replaceAll(pattern, replacementToken);
-    }
-    template.withHeader(header);
-    template.withBody(body);
+  private static boolean objectIsNonBlankString(Object obj) {
+    return obj instanceof String
+        && StringUtils.isNoneBlank((String) obj);
   }
 
   private void createAttachment(String barcode, String contentId) {
@@ -165,14 +196,17 @@ public class TemplateContextPreProcessor {
   }
 
   private static class Token {
-    private final String fullPath;
     private final String shortPath;
+    private final List<Object> imagePath;
     private final String value;
 
-    Token(String token, String value) {
-      this.fullPath = token;
+    Token(String token, List<Object> path, String value) {
       this.value = value;
       this.shortPath = extractShortPath(token);
+      this.imagePath = new ArrayList<>(path);
+      // the image is a sibling of the barcode value
+      int last = imagePath.size() - 1;
+      imagePath.set(last, imagePath.get(last) + SUFFIX_IMAGE);
     }
 
     private String extractShortPath(String fullPath) {
@@ -180,14 +214,14 @@ public class TemplateContextPreProcessor {
       return arrayEndIndex == -1 ? fullPath : fullPath.substring(arrayEndIndex + 2);
     }
 
-    private String fullPath() {
-      return fullPath;
-    }
-
     private String shortPath() {
       return shortPath;
     }
 
+    private List<Object> imagePath() {
+      return imagePath;
+    }
+
     private String value() {
       return value;
     }
@@ -0,0 +1,98 @@
+package org.folio.template.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strong entity tags of stored templates. The tag is the quoted digest of the stored template document,
+ * so it changes with every update of the template. A compressed representation carries the tag with the
+ * content coding appended, e.g. {@code "<digest>-gzip"}, since it differs byte by byte from the identity
+ * representation; preconditions compare the digest regardless of the coding.
+ */
+public final class TemplateETag {
+
+  private static final String ANY = "*";
+  private static final String WEAK_PREFIX = "W/";
+  private static final String QUOTE = "\"";
+  private static final List<String> CODINGS = List.of("gzip", "deflate");
+
+  private TemplateETag() {
+  }
+
+  public static String format(String digest) {
+    return QUOTE + digest + QUOTE;
+  }
+
+  /**
+   * Returns the tag of the representation compressed with the content coding
+   *
+   * @param etag   tag of the identity representation
+   * @param coding content coding, e.g. {@code gzip}
+   * @return the tag with the coding appended inside the quotes
+   */
+  public static String withCoding(String etag, String coding) {
+    if (etag.length() < 2 || !etag.endsWith(QUOTE)) {
+      return etag;
+    }
+    return etag.substring(0, etag.length() - 1) + "-" + coding + QUOTE;
+  }
+
+  public static boolean isAny(String header) {
+    return header != null && ANY.equals(header.trim());
+  }
+
+  /**
+   * Evaluates {@code If-None-Match}, which uses weak comparison, so weak tags match as well
+   *
+   * @param header value of the header
+   * @param etag   current entity tag of the template
+   * @return true if the client already has the current version
+   */
+  public static boolean matchesAny(String header, String etag) {
+    if (header == null) {
+      return false;
+    }
+    if (isAny(header)) {
+      return true;
+    }
+    for (String tag : header.split(",")) {
+      String trimmed = tag.trim();
+      if (trimmed.startsWith(WEAK_PREFIX)) {
+        trimmed = trimmed.substring(WEAK_PREFIX.length());
+      }
+      if (withoutCoding(trimmed).equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Extracts the digests of the strong tags listed in {@code If-Match}, weak tags never match
+   * a strong comparison and are skipped
+   *
+   * @param header value of the header, other than {@code *}
+   * @return digests of the listed strong tags
+   */
+  public static List<String> parseStrongDigests(String header) {
+    List<String> digests = new ArrayList<>();
+    for (String tag : header.split(",")) {
+      String trimmed = tag.trim();
+      if (trimmed.length() >= 2 && trimmed.startsWith(QUOTE) && trimmed.endsWith(QUOTE)) {
+        String unquoted = withoutCoding(trimmed);
+        digests.add(unquoted.substring(1, unquoted.length() - 1));
+      }
+    }
+    return digests;
+  }
+
+  private static String withoutCoding(String tag) {
+    for (String coding : CODINGS) {
+      String suffix = "-" + coding + QUOTE;
+      if (tag.endsWith(suffix) && tag.length() > suffix.length()) {
+        return tag.substring(0, tag.length() - suffix.length()) + QUOTE;
+      }
+    }
+    return tag;
+  }
+}
@@ -2,6 +2,7 @@ package org.folio.template.util;
 
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -11,13 +12,19 @@ import org.folio.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.rest.tools.utils.ValidationHelper;
+import org.folio.template.ContextTooLargeException;
 import org.folio.template.InUseTemplateException;
+import org.folio.template.RenderCapacityExceededException;
+import org.folio.template.RenderLimitExceededException;
+import org.folio.template.TemplateVersionMismatchException;
 
 public final class TemplateEngineHelper {
 
   private static final Logger LOG = LogManager.getLogger("mod-template-engine");
 
   public static final String TEMPLATE_RESOLVERS_LOCAL_MAP = "template-resolvers.map";
+  private static final int SC_PRECONDITION_FAILED = 412;
+  private static final int SC_REQUEST_ENTITY_TOO_LARGE = 413;
 
   private TemplateEngineHelper() {
   }
@@ -48,6 +55,39 @@ public final class TemplateEngineHelper {
         .build();
     }
 
+    if (throwable instanceof TemplateVersionMismatchException) {
+      LOG.warn("Template version mismatch: {}", throwable.getMessage());
+      return Response.status(SC_PRECONDITION_FAILED)
+        .type(MediaType.TEXT_PLAIN)
+        .entity(throwable.getMessage())
+        .build();
+    }
+
+    if (throwable instanceof RenderCapacityExceededException capacityException) {
+      LOG.warn("Render capacity exceeded: {}", throwable.getMessage());
+      return Response.status(capacityException.getStatus())
+        .type(MediaType.TEXT_PLAIN)
+        .header(HttpHeaders.RETRY_AFTER, capacityException.getRetryAfterSeconds())
+        .entity(throwable.getMessage())
+        .build();
+    }
+
+    if (throwable instanceof ContextTooLargeException) {
+      LOG.warn("Context too large: {}", throwable.getMessage());
+      return Response.status(SC_REQUEST_ENTITY_TOO_LARGE)
+        .type(MediaType.TEXT_PLAIN)
+        .entity(throwable.getMessage())
+        .build();
+    }
+
+    if (throwable instanceof RenderLimitExceededException) {
+      LOG.warn("Render limit exceeded: {}", throwable.getMessage());
+      return Response.status(RenderLimitExceededException.FAILURE_CODE)
+        .type(MediaType.TEXT_PLAIN)
+        .entity(throwable.getMessage())
+        .build();
+    }
+
     Promise<Response> promise = Promise.promise();
     ValidationHelper.handleError(throwable, promise::handle);
     if (promise.future().isComplete()) {
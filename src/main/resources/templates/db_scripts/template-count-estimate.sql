@@ -0,0 +1,9 @@
+-- Planner estimate of the number of rows returned by a query, used for totalRecords of large result sets
+CREATE OR REPLACE FUNCTION template_count_estimate(query text) RETURNS bigint AS $$
+DECLARE
+  plan jsonb;
+BEGIN
+  EXECUTE 'EXPLAIN (FORMAT JSON) ' || query INTO plan;
+  RETURN (plan->0->'Plan'->>'Plan Rows')::bigint;
+END;
+$$ LANGUAGE plpgsql STRICT;
@@ -2,6 +2,7 @@ package org.folio.rest.impl;
 
 import io.vertx.core.Future;
 import org.folio.rest.jaxrs.model.Template;
+import org.folio.rest.jaxrs.model.TemplatesCollection;
 import org.folio.template.dao.TemplateDaoImpl;
 import org.junit.jupiter.api.Test;
 
@@ -16,4 +17,11 @@ class TemplateDaoImplTest {
     assert templates.failed();
   }
 
+  @Test
+  void testGetTemplatesCollectionFailure() {
+    TemplateDaoImpl dao = new TemplateDaoImpl(null);
+    Future<TemplatesCollection> templates = dao.getTemplatesCollection("", 0, 0, null);
+    assert templates.failed();
+  }
+
 }
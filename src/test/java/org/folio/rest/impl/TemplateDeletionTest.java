@@ -2,7 +2,9 @@ package org.folio.rest.impl;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.jsonResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.notMatching;
 import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static io.restassured.RestAssured.given;
@@ -17,13 +19,16 @@ import org.folio.rest.RestVerticle;
 import org.folio.rest.client.TenantClient;
 import org.folio.rest.jaxrs.model.TenantAttributes;
 import org.folio.rest.tools.utils.NetworkUtils;
+import org.folio.template.cache.TemplateReferenceIndex;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 
 import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.http.ContentType;
@@ -101,10 +106,16 @@ class TemplateDeletionTest {
       });
   }
 
+  @BeforeEach
+  void setUp() {
+    stubReferenceIndexRefresh(new JsonArray());
+  }
+
   @AfterEach
   void tearDown() {
     Postgres.truncate();
     wireMockServer.resetAll();
+    TemplateReferenceIndex.getInstance().invalidate(Postgres.getTenant());
   }
 
   @AfterAll
@@ -151,6 +162,8 @@ class TemplateDeletionTest {
           404))
     );
 
+    stubReferenceIndexRefresh(jsonResponse(new JsonObject()
+      .put("message", "no Route matched with those values").encode(), 404));
     given()
       .spec(spec)
       .body(inUseTemplate.encode())
@@ -184,6 +197,8 @@ class TemplateDeletionTest {
                 400))
     );
 
+    stubReferenceIndexRefresh(jsonResponse(new JsonObject()
+      .put("errors", new JsonArray().add(new JsonObject().put("message", errorMessage))).encode(), 400));
     given()
         .spec(spec)
         .body(inUseTemplate.encode())
@@ -209,6 +224,8 @@ class TemplateDeletionTest {
             .put("message", "Internal Server Error").encode(), 500))
     );
 
+    stubReferenceIndexRefresh(jsonResponse(new JsonObject()
+      .put("message", "Internal Server Error").encode(), 500));
     given()
       .spec(spec)
       .body(unusedTemplate.encode())
@@ -234,6 +251,9 @@ class TemplateDeletionTest {
           .put("totalRecords", 1).encode()))
     );
 
+    // the deletion is checked remotely when the reference index cannot be rebuilt
+    stubReferenceIndexRefresh(jsonResponse(new JsonObject()
+      .put("message", "Internal Server Error").encode(), 500));
     given()
       .spec(spec)
       .body(inUseTemplate.encode())
@@ -248,6 +268,45 @@ class TemplateDeletionTest {
       .statusCode(400);
   }
 
+  @Test
+  void deletionIsDecidedByReferenceIndexWithoutWildcardQuery() {
+    String inUseId = inUseTemplate.getString("id");
+    stubReferenceIndexRefresh(new JsonArray().add(new JsonObject()
+      .put("id", "0b2ea2a1-8e0b-4d8e-a5b1-1a0c3e8f6c01")
+      .put("loanNotices", new JsonArray().add(new JsonObject()
+        .put("templateId", inUseId.toUpperCase())
+        .put("format", "Email")))));
+
+    given()
+      .spec(spec)
+      .body(unusedTemplate.encode())
+      .when()
+      .post("/templates");
+    given()
+      .spec(spec)
+      .body(inUseTemplate.encode())
+      .when()
+      .post("/templates");
+
+    given()
+      .spec(spec)
+      .when()
+      .delete("/templates/" + unusedTemplate.getString("id"))
+      .then()
+      .statusCode(204);
+    given()
+      .spec(spec)
+      .when()
+      .delete("/templates/" + inUseId)
+      .then()
+      .statusCode(400);
+
+    wireMockServer.verify(1, getRequestedFor(urlPathEqualTo("/patron-notice-policy-storage/patron-notice-policies"))
+      .withQueryParam("query", equalTo("cql.allRecords=1")));
+    wireMockServer.verify(0, getRequestedFor(urlPathEqualTo("/patron-notice-policy-storage/patron-notice-policies"))
+      .withQueryParam("query", notMatching("cql\\.allRecords=1")));
+  }
+
   @Test
   void cannotDeleteWhenTemplateInUseWithInvalidResponseBody() {
     wireMockServer.stubFor(
@@ -257,6 +316,7 @@ class TemplateDeletionTest {
         .willReturn(okJson(new JsonObject().put("test_key", "test_value").encode()))
     );
 
+    stubReferenceIndexRefresh(okJson(new JsonObject().put("test_key", "test_value").encode()));
     given()
       .spec(spec)
       .body(inUseTemplate.encode())
@@ -270,4 +330,18 @@ class TemplateDeletionTest {
       .then()
       .statusCode(500);
   }
+
+  private static void stubReferenceIndexRefresh(JsonArray policies) {
+    stubReferenceIndexRefresh(okJson(new JsonObject()
+      .put("patronNoticePolicies", policies)
+      .put("totalRecords", policies.size()).encode()));
+  }
+
+  private static void stubReferenceIndexRefresh(ResponseDefinitionBuilder response) {
+    wireMockServer.stubFor(
+      get(urlPathEqualTo("/patron-notice-policy-storage/patron-notice-policies"))
+        .withQueryParam("query", equalTo("cql.allRecords=1"))
+        .willReturn(response)
+    );
+  }
 }
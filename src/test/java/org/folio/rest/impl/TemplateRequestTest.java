@@ -8,9 +8,13 @@ import static io.vertx.core.json.JsonObject.mapFrom;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.client.HttpResponse;
@@ -20,9 +24,15 @@ import org.apache.logging.log4j.Logger;
 import org.folio.rest.RestVerticle;
 import org.folio.rest.client.TenantClient;
 import org.folio.rest.jaxrs.model.*;
+import org.folio.rest.persist.PostgresClient;
 import org.folio.rest.tools.utils.NetworkUtils;
+import org.folio.template.dao.AttachmentDao;
+import org.folio.template.dao.AttachmentDaoImpl;
+import org.folio.template.dao.RenderJobDao;
+import org.folio.template.dao.RenderJobDaoImpl;
 import org.hamcrest.CoreMatchers;
 import org.hamcrest.Matchers;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -37,12 +47,14 @@ import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.http.ContentType;
 import io.restassured.specification.RequestSpecification;
 import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.sqlclient.Tuple;
 
 @RunWith(VertxUnitRunner.class)
 public class TemplateRequestTest {
@@ -54,6 +66,12 @@ public class TemplateRequestTest {
   private static final String TEMPLATE_PATH = "/templates";
   private static final String TEMPLATE_REQUEST_PATH = "/template-request";
   private static final String LOCALE_REQUEST_PATH = "/locale";
+  private static final String MAIL_MERGE_PATH = "/template-request/mail-merge";
+  private static final String JOBS_PATH = "/template-request/jobs";
+  private static final String EXPORT_PATH = "/template-export";
+  private static final String IMPORT_PATH = "/template-import";
+  private static final String LOOKUP_PATH = "/template-lookup";
+  private static final String ATTACHMENTS_PATH = "/template-attachments";
 
   private static final String TXT_OUTPUT_FORMAT = "txt";
   private static final String HTML_OUTPUT_FORMAT = "html";
@@ -61,6 +79,8 @@ public class TemplateRequestTest {
 
   private static final Logger logger = LogManager.getLogger("TemplateEngineTest");
   private static final int POST_TENANT_TIMEOUT = 10000;
+  private static final int BENCHMARK_TEMPLATES = 20_000;
+  private static final int BENCHMARK_ITERATIONS = 20;
 
   private static Vertx vertx;
   private static String moduleUrl;
@@ -679,6 +699,66 @@ public class TemplateRequestTest {
       .body("result.attachments[0].data", Matchers.not((Matchers.isEmptyOrNullString())));
   }
 
+  @Test
+  public void attachmentsAreDeliveredByReferenceWhenRequested() {
+    Template template = new Template()
+      .withDescription("Template with barcodes")
+      .withOutputFormats(Collections.singletonList(HTML_OUTPUT_FORMAT))
+      .withTemplateResolver("mustache")
+      .withLocalizedTemplates(new LocalizedTemplates().withAdditionalProperty(EN_LANG,
+        new LocalizedTemplatesProperty()
+          .withHeader("Item barcode: {{item.barcode}}")
+          .withBody("Item barcode image: {{item.barcodeImage}}")));
+
+    String templateId = postTemplate(template);
+
+    TemplateProcessingRequest templateRequest =
+      new TemplateProcessingRequest()
+        .withTemplateId(templateId)
+        .withLang(EN_LANG)
+        .withOutputFormat(HTML_OUTPUT_FORMAT)
+        .withAttachmentsByReference(true)
+        .withContext(new Context()
+          .withAdditionalProperty("item",
+            new JsonObject()
+              .put("barcode", "1234567890")));
+
+    String hash = RestAssured.given()
+      .spec(spec)
+      .body(toJson(templateRequest))
+      .when()
+      .post(TEMPLATE_REQUEST_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("result.attachments.size()", is(1))
+      .body("result.attachments[0].contentId", is("<barcode_1234567890>"))
+      .body("result.attachments[0].data", Matchers.nullValue())
+      .body("result.attachments[0].hash", Matchers.matchesPattern("[a-f0-9]{64}"))
+      .extract()
+      .path("result.attachments[0].hash");
+
+    byte[] content = RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(ATTACHMENTS_PATH + "/" + hash)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .contentType("image/png")
+      .header("ETag", is("\"" + hash + "\""))
+      .header("Cache-Control", is("private, max-age=31536000, immutable"))
+      .extract()
+      .asByteArray();
+    // PNG signature
+    assertThat(Arrays.copyOf(content, 4), is(new byte[] {(byte) 0x89, 'P', 'N', 'G'}));
+
+    RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(ATTACHMENTS_PATH + "/" + "0".repeat(64))
+      .then()
+      .statusCode(HttpStatus.SC_NOT_FOUND);
+  }
+
   @Test
   public void noAttachmentsAreCreatedWhenImageTokenIsNotInTemplate() {
     Template template = new Template()
@@ -962,6 +1042,648 @@ public class TemplateRequestTest {
       .body("meta.outputFormat", is(HTML_OUTPUT_FORMAT));
   }
 
+  @Test
+  public void shouldRenderMailMergeInContextOrder() {
+    String templateId = postTemplate(createTemplate());
+
+    MailMergeRequest mailMergeRequest = new MailMergeRequest()
+      .withTemplateId(templateId)
+      .withLang(EN_LANG)
+      .withOutputFormat(TXT_OUTPUT_FORMAT)
+      .withContexts(List.of(
+        new Context().withAdditionalProperty("user", new JsonObject().put("name", "Alex")),
+        new Context().withAdditionalProperty("user", new JsonObject().put("name", "Jane"))));
+
+    RestAssured.given()
+      .spec(spec)
+      .body(toJson(mailMergeRequest))
+      .when()
+      .post(MAIL_MERGE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("totalRecords", is(2))
+      .body("results[0].templateId", is(templateId))
+      .body("results[0].result.header", is("Hello message for Alex"))
+      .body("results[0].result.body", is("Hello Alex"))
+      .body("results[1].result.body", is("Hello Jane"))
+      .body("results[1].meta.outputFormat", is(TXT_OUTPUT_FORMAT));
+  }
+
+  @Test
+  public void shouldListSharedMailMergeAttachmentsOnce() {
+    Template template = new Template()
+      .withDescription("Template with barcodes")
+      .withOutputFormats(Collections.singletonList(HTML_OUTPUT_FORMAT))
+      .withTemplateResolver("mustache")
+      .withLocalizedTemplates(new LocalizedTemplates().withAdditionalProperty(EN_LANG,
+        new LocalizedTemplatesProperty()
+          .withHeader("Pick slip for {{user.name}}")
+          .withBody("Item barcode image: {{item.barcodeImage}}")));
+
+    String templateId = postTemplate(template);
+
+    JsonObject item = new JsonObject().put("barcode", "1234567890");
+    MailMergeRequest mailMergeRequest = new MailMergeRequest()
+      .withTemplateId(templateId)
+      .withLang(EN_LANG)
+      .withOutputFormat(HTML_OUTPUT_FORMAT)
+      .withContexts(List.of(
+        new Context()
+          .withAdditionalProperty("user", new JsonObject().put("name", "Alex"))
+          .withAdditionalProperty("item", item.copy()),
+        new Context()
+          .withAdditionalProperty("user", new JsonObject().put("name", "Jane"))
+          .withAdditionalProperty("item", item.copy())));
+
+    RestAssured.given()
+      .spec(spec)
+      .body(toJson(mailMergeRequest))
+      .when()
+      .post(MAIL_MERGE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("attachments.size()", is(1))
+      .body("attachments[0].contentId", is("<barcode_1234567890>"))
+      .body("attachments[0].data", Matchers.not(Matchers.isEmptyOrNullString()))
+      .body("results[0].result.attachments.size()", is(0))
+      .body("results[0].attachmentContentIds", is(List.of("<barcode_1234567890>")))
+      .body("results[1].attachmentContentIds", is(List.of("<barcode_1234567890>")));
+  }
+
+  @Test
+  public void shouldReturnBadRequestWhenMailMergeTemplateDoesNotExist() {
+    MailMergeRequest mailMergeRequest = new MailMergeRequest()
+      .withTemplateId(UUID.randomUUID().toString())
+      .withLang(EN_LANG)
+      .withOutputFormat(TXT_OUTPUT_FORMAT)
+      .withContexts(List.of(new Context()));
+
+    RestAssured.given()
+      .spec(spec)
+      .body(toJson(mailMergeRequest))
+      .when()
+      .post(MAIL_MERGE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_BAD_REQUEST);
+  }
+
+  @Test
+  public void shouldRenderJobAndPageThroughResults() throws InterruptedException {
+    String templateId = postTemplate(createTemplate());
+
+    RenderJobRequest jobRequest = new RenderJobRequest()
+      .withTemplateId(templateId)
+      .withLang(EN_LANG)
+      .withOutputFormat(TXT_OUTPUT_FORMAT)
+      .withContexts(List.of(
+        new Context().withAdditionalProperty("user", new JsonObject().put("name", "Alex")),
+        new Context().withAdditionalProperty("user", new JsonObject().put("name", "Jane")),
+        new Context().withAdditionalProperty("user", new JsonObject().put("name", "Kim"))));
+
+    String jobId = RestAssured.given()
+      .spec(spec)
+      .body(toJson(jobRequest))
+      .when()
+      .post(JOBS_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_CREATED)
+      .body("status", is("IN_PROGRESS"))
+      .body("totalItems", is(3))
+      .body("languageTag", is("en-US"))
+      .extract()
+      .body().jsonPath().get("id");
+
+    JsonObject job = awaitJobCompletion(jobId);
+    assertThat(job.getInteger("processedItems"), is(3));
+    assertThat(job.getInteger("failedItems"), is(0));
+    assertThat(job.containsKey("leaseToken"), is(false));
+
+    RestAssured.given()
+      .spec(spec)
+      .queryParam("offset", 1)
+      .queryParam("limit", 2)
+      .when()
+      .get(JOBS_PATH + "/" + jobId + "/results")
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("totalRecords", is(3))
+      .body("results.size()", is(2))
+      .body("results[0].sequence", is(1))
+      .body("results[0].status", is("COMPLETED"))
+      .body("results[0].result.result.body", is("Hello Jane"))
+      .body("results[1].result.result.body", is("Hello Kim"))
+      .body("results[0].context", Matchers.nullValue());
+  }
+
+  @Test
+  public void shouldReturnBadRequestWhenJobTemplateDoesNotExist() {
+    RenderJobRequest jobRequest = new RenderJobRequest()
+      .withTemplateId(UUID.randomUUID().toString())
+      .withLang(EN_LANG)
+      .withOutputFormat(TXT_OUTPUT_FORMAT)
+      .withContexts(List.of(new Context()));
+
+    RestAssured.given()
+      .spec(spec)
+      .body(toJson(jobRequest))
+      .when()
+      .post(JOBS_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_BAD_REQUEST);
+  }
+
+  @Test
+  public void shouldNotSaveCheckpointOfWorkerWhoseLeaseWasTakenOver(TestContext context) {
+    RenderJobDao jobDao = new RenderJobDaoImpl(vertx, Postgres.getTenant());
+    RenderJob job = new RenderJob()
+      .withId(UUID.randomUUID().toString())
+      .withTemplateId(UUID.randomUUID().toString())
+      .withLang(EN_LANG)
+      .withOutputFormat(TXT_OUTPUT_FORMAT)
+      .withStatus(RenderJob.Status.IN_PROGRESS)
+      .withTotalItems(0)
+      .withProcessedItems(0)
+      .withFailedItems(0);
+    Date expired = new Date(System.currentTimeMillis() - 1000);
+    Date valid = new Date(System.currentTimeMillis() + 60_000);
+
+    jobDao.createJob(job, List.of())
+      .compose(v -> jobDao.acquireLease(job.getId(), "first-worker", expired))
+      .compose(acquired -> {
+        context.assertTrue(acquired);
+        return jobDao.acquireLease(job.getId(), "second-worker", valid);
+      })
+      .compose(acquired -> {
+        context.assertTrue(acquired);
+        return jobDao.saveCheckpoint(job.withLeaseToken("first-worker").withStatus(RenderJob.Status.COMPLETED),
+          List.of());
+      })
+      .compose(saved -> {
+        context.assertFalse(saved);
+        return jobDao.saveCheckpoint(job.withLeaseToken("second-worker"), List.of());
+      })
+      .onComplete(context.asyncAssertSuccess(context::assertTrue));
+  }
+
+  @Test
+  public void shouldFindJobsWhoseLeaseExpiredUntilTheLeaseIsRenewed(TestContext context) {
+    RenderJobDao jobDao = new RenderJobDaoImpl(vertx, Postgres.getTenant());
+    RenderJob job = new RenderJob()
+      .withId(UUID.randomUUID().toString())
+      .withTemplateId(UUID.randomUUID().toString())
+      .withLang(EN_LANG)
+      .withOutputFormat(TXT_OUTPUT_FORMAT)
+      .withStatus(RenderJob.Status.IN_PROGRESS)
+      .withTotalItems(0)
+      .withProcessedItems(0)
+      .withFailedItems(0);
+    Date expired = new Date(System.currentTimeMillis() - 1000);
+    Date valid = new Date(System.currentTimeMillis() + 60_000);
+
+    jobDao.createJob(job, List.of())
+      .compose(v -> jobDao.acquireLease(job.getId(), "worker", expired))
+      .compose(acquired -> {
+        context.assertTrue(acquired);
+        return jobDao.findAbandonedJobIds(100);
+      })
+      .compose(jobIds -> {
+        context.assertTrue(jobIds.contains(job.getId()));
+        return jobDao.renewLease(job.getId(), "other-worker", valid);
+      })
+      .compose(renewed -> {
+        context.assertFalse(renewed);
+        return jobDao.renewLease(job.getId(), "worker", valid);
+      })
+      .compose(renewed -> {
+        context.assertTrue(renewed);
+        return jobDao.findAbandonedJobIds(100);
+      })
+      .onComplete(context.asyncAssertSuccess(jobIds -> context.assertFalse(jobIds.contains(job.getId()))));
+  }
+
+  @Test
+  public void shouldPurgeRenderJobsCompletedBeforeRetention(TestContext context) {
+    RenderJobDao jobDao = new RenderJobDaoImpl(vertx, Postgres.getTenant());
+    Date longAgo = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8));
+    RenderJob expired = createCompletedJob(longAgo);
+    RenderJob recent = createCompletedJob(new Date());
+    RenderJob running = createCompletedJob(longAgo).withStatus(RenderJob.Status.IN_PROGRESS);
+    RenderJobItem expiredItem = new RenderJobItem()
+      .withId(UUID.randomUUID().toString())
+      .withJobId(expired.getId())
+      .withSequence(0)
+      .withStatus(RenderJobItem.Status.COMPLETED);
+
+    jobDao.createJob(expired, List.of(expiredItem))
+      .compose(v -> jobDao.createJob(recent, List.of()))
+      .compose(v -> jobDao.createJob(running, List.of()))
+      .compose(v -> jobDao.purgeJobs(7))
+      .compose(count -> {
+        context.assertEquals(1, count);
+        return jobDao.getJobById(expired.getId());
+      })
+      .compose(job -> {
+        context.assertFalse(job.isPresent());
+        return jobDao.getItems(expired.getId(), 0, 10, false);
+      })
+      .compose(items -> {
+        context.assertTrue(items.isEmpty());
+        return jobDao.getJobById(recent.getId());
+      })
+      .compose(job -> {
+        context.assertTrue(job.isPresent());
+        return jobDao.getJobById(running.getId());
+      })
+      .onComplete(context.asyncAssertSuccess(job -> context.assertTrue(job.isPresent())));
+  }
+
+  @Test
+  public void shouldPurgeAttachmentContentsNotStoredWithinRetention(TestContext context) {
+    AttachmentDao attachmentDao = new AttachmentDaoImpl(vertx, Postgres.getTenant());
+    Attachment expired = createAttachmentContent("a".repeat(64));
+    Attachment renewed = createAttachmentContent("b".repeat(64));
+    Attachment recent = createAttachmentContent("c".repeat(64));
+
+    attachmentDao.saveContents(List.of(expired, renewed, recent))
+      .compose(v -> backdateAttachmentContent(expired, 31))
+      .compose(v -> backdateAttachmentContent(renewed, 31))
+      .compose(v -> attachmentDao.saveContents(List.of(renewed)))
+      .compose(v -> attachmentDao.purgeContents(30))
+      .compose(count -> {
+        context.assertEquals(1, count);
+        return attachmentDao.getContent(expired.getHash());
+      })
+      .compose(content -> {
+        context.assertFalse(content.isPresent());
+        return attachmentDao.getContent(renewed.getHash());
+      })
+      .compose(content -> {
+        context.assertTrue(content.isPresent());
+        return attachmentDao.getContent(recent.getHash());
+      })
+      .onComplete(context.asyncAssertSuccess(content -> context.assertTrue(content.isPresent())));
+  }
+
+  @Test
+  public void shouldReturnNotFoundForUnknownJob() {
+    RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(JOBS_PATH + "/" + UUID.randomUUID())
+      .then()
+      .statusCode(HttpStatus.SC_NOT_FOUND);
+  }
+
+  @Test
+  public void shouldReturnTotalRecordsOfAllMatchingTemplates() {
+    postTemplate(createTemplate().withDescription("first"));
+    postTemplate(createTemplate().withDescription("second"));
+    postTemplate(createTemplate().withDescription("third"));
+
+    RestAssured.given()
+      .spec(spec)
+      .queryParam("query", "cql.allRecords=1 sortBy description")
+      .queryParam("offset", 1)
+      .queryParam("limit", 1)
+      .when()
+      .get(TEMPLATE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("totalRecords", is(3))
+      .body("templates.size()", is(1))
+      .body("templates[0].description", is("second"));
+
+    RestAssured.given()
+      .spec(spec)
+      .queryParam("query", "cql.allRecords=1 sortBy description/sort.descending")
+      .when()
+      .get(TEMPLATE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("templates.description", is(List.of("third", "second", "first")));
+
+    RestAssured.given()
+      .spec(spec)
+      .queryParam("offset", 5)
+      .when()
+      .get(TEMPLATE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("totalRecords", is(3))
+      .body("templates.size()", is(0));
+  }
+
+  @Test
+  public void shouldReturnOnlyRequestedTemplateFields() {
+    String templateId = postTemplate(createTemplate().withScope("circulation"));
+
+    RestAssured.given()
+      .spec(spec)
+      .queryParam("fields", "description, scope")
+      .when()
+      .get(TEMPLATE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("totalRecords", is(1))
+      .body("templates[0].id", is(templateId))
+      .body("templates[0].description", is("Template for password change"))
+      .body("templates[0].scope", is("circulation"))
+      .body("templates[0].localizedTemplates", Matchers.nullValue())
+      .body("templates[0].outputFormats", Matchers.nullValue());
+  }
+
+  @Test
+  public void shouldReturnBadRequestForUnknownTemplateField() {
+    RestAssured.given()
+      .spec(spec)
+      .queryParam("fields", "id,unknown")
+      .when()
+      .get(TEMPLATE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_BAD_REQUEST);
+  }
+
+  @Test
+  public void shouldExportTemplatesByKeysetPages() {
+    List<String> ids = new ArrayList<>(List.of(postTemplate(createTemplate()),
+      postTemplate(createTemplate()), postTemplate(createTemplate())));
+    Collections.sort(ids);
+
+    String firstPage = RestAssured.given()
+      .spec(spec)
+      .queryParam("limit", 2)
+      .when()
+      .get(EXPORT_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .contentType(Matchers.startsWith("application/x-ndjson"))
+      .extract()
+      .asString();
+    List<String> firstLines = firstPage.lines().toList();
+    assertThat(firstLines.size(), is(2));
+    assertThat(new JsonObject(firstLines.get(0)).getString("id"), is(ids.get(0)));
+    assertThat(new JsonObject(firstLines.get(1)).getString("id"), is(ids.get(1)));
+
+    String lastPage = RestAssured.given()
+      .spec(spec)
+      .queryParam("after", ids.get(1))
+      .queryParam("limit", 2)
+      .when()
+      .get(EXPORT_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .extract()
+      .asString();
+    List<String> lastLines = lastPage.lines().toList();
+    assertThat(lastLines.size(), is(1));
+    JsonObject exported = new JsonObject(lastLines.get(0));
+    assertThat(exported.getString("id"), is(ids.get(2)));
+    assertThat(exported.getJsonObject("localizedTemplates").getJsonObject(EN_LANG).getString("body"),
+      is("Hello {{user.name}}"));
+  }
+
+  @Test
+  public void shouldImportValidTemplatesAndReportInvalidOnes() {
+    String existingId = postTemplate(createTemplate());
+    Template replacement = createTemplate().withId(existingId).withDescription("Replaced");
+    Template created = createTemplate().withId(UUID.randomUUID().toString());
+    Template notCompiling = createTemplate();
+    notCompiling.getLocalizedTemplates().getAdditionalProperties().get(EN_LANG).setBody("{{#loans}}unclosed");
+    Template unsupportedResolver = createTemplate().withTemplateResolver("unknown");
+
+    TemplateImportRequest importRequest = new TemplateImportRequest()
+      .withTemplates(List.of(replacement, notCompiling, created, unsupportedResolver));
+
+    RestAssured.given()
+      .spec(spec)
+      .body(toJson(importRequest))
+      .when()
+      .post(IMPORT_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("importedRecords", is(2))
+      .body("totalRecords", is(4))
+      .body("errors.index", is(List.of(1, 3)))
+      .body("errors[1].message", is("Template resolver 'unknown' is not supported"));
+
+    RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(TEMPLATE_PATH + "/" + existingId)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("description", is("Replaced"))
+      .body("metadata.createdDate", Matchers.notNullValue());
+
+    RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(TEMPLATE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("totalRecords", is(2));
+  }
+
+  @Test
+  public void shouldLookUpTemplatesInRequestOrderAndListMissingIds() {
+    String firstId = postTemplate(createTemplate().withDescription("first"));
+    String secondId = postTemplate(createTemplate().withDescription("second"));
+    String missingId = UUID.randomUUID().toString();
+
+    TemplateLookupRequest lookupRequest = new TemplateLookupRequest()
+      .withIds(List.of(secondId, missingId, firstId, secondId.toUpperCase()));
+
+    RestAssured.given()
+      .spec(spec)
+      .body(toJson(lookupRequest))
+      .when()
+      .post(LOOKUP_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .body("totalRecords", is(2))
+      .body("templates.id", is(List.of(secondId, firstId)))
+      .body("missingIds", is(List.of(missingId)));
+  }
+
+  @Test
+  public void shouldReturnNotModifiedWhenTemplateETagMatches() {
+    String templateId = postTemplate(createTemplate());
+
+    String etag = RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(TEMPLATE_PATH + "/" + templateId)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .header("ETag", Matchers.startsWith("\""))
+      .extract()
+      .header("ETag");
+
+    RestAssured.given()
+      .spec(spec)
+      .header("If-None-Match", etag)
+      .when()
+      .get(TEMPLATE_PATH + "/" + templateId)
+      .then()
+      .statusCode(304)
+      .header("ETag", is(etag));
+
+    RestAssured.given()
+      .spec(spec)
+      .header("If-None-Match", "\"outdated\"")
+      .when()
+      .get(TEMPLATE_PATH + "/" + templateId)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .header("ETag", is(etag))
+      .body("id", is(templateId));
+  }
+
+  @Test
+  public void shouldTagCompressedTemplateWithContentCoding() {
+    Template template = createTemplate();
+    template.getLocalizedTemplates().getAdditionalProperties().get(EN_LANG)
+      .withBody("Hello {{user.name}}, your loan is due. ".repeat(50));
+    String templateId = postTemplate(template);
+
+    String etag = RestAssured.given()
+      .spec(spec)
+      .header("Accept-Encoding", "gzip")
+      .when()
+      .get(TEMPLATE_PATH + "/" + templateId)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .header("ETag", Matchers.endsWith("-gzip\""))
+      .extract()
+      .header("ETag");
+
+    RestAssured.given()
+      .spec(spec)
+      .header("If-None-Match", etag)
+      .when()
+      .get(TEMPLATE_PATH + "/" + templateId)
+      .then()
+      .statusCode(304);
+  }
+
+  @Test
+  public void shouldUpdateTemplateOnlyWhenIfMatchIsCurrent() {
+    Template template = createTemplate();
+    String templateId = postTemplate(template);
+    String etag = RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(TEMPLATE_PATH + "/" + templateId)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .extract()
+      .header("ETag");
+
+    String updatedEtag = RestAssured.given()
+      .spec(spec)
+      .header("If-Match", etag)
+      .body(toJson(template.withDescription("Updated description")))
+      .when()
+      .put(TEMPLATE_PATH + "/" + templateId)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .header("ETag", Matchers.not(etag))
+      .extract()
+      .header("ETag");
+
+    RestAssured.given()
+      .spec(spec)
+      .header("If-Match", etag)
+      .body(toJson(template.withDescription("Lost update")))
+      .when()
+      .put(TEMPLATE_PATH + "/" + templateId)
+      .then()
+      .statusCode(412);
+
+    RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(TEMPLATE_PATH + "/" + templateId)
+      .then()
+      .statusCode(HttpStatus.SC_OK)
+      .header("ETag", is(updatedEtag))
+      .body("description", is("Updated description"));
+  }
+
+  @Test
+  public void shouldReturnNotFoundForConditionalUpdateOfUnknownTemplate() {
+    Template template = createTemplate().withId(UUID.randomUUID().toString());
+
+    RestAssured.given()
+      .spec(spec)
+      .header("If-Match", "\"outdated\"")
+      .body(toJson(template))
+      .when()
+      .put(TEMPLATE_PATH + "/" + template.getId())
+      .then()
+      .statusCode(HttpStatus.SC_NOT_FOUND);
+  }
+
+  /**
+   * Times template queries against a table seeded with {@code BENCHMARK_TEMPLATES} templates. Run with
+   * {@code mvn test -Dtest=TemplateRequestTest#templateQueryBenchmark -Dbenchmark=true}, results are printed
+   * to stdout.
+   */
+  @Test
+  public void templateQueryBenchmark() {
+    Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+    Postgres.runSql(String.format("INSERT INTO %s_mod_template_engine.template (id, jsonb)"
+      + " SELECT id, jsonb_build_object('id', id, 'description', 'Template number ' || n,"
+      + " 'scope', (ARRAY['circulation', 'orders', 'users'])[n %% 3 + 1],"
+      + " 'templateResolver', (ARRAY['mustache', 'handlebars'])[n %% 2 + 1],"
+      + " 'outputFormats', jsonb_build_array('text/plain', (ARRAY['text/html', 'text/xml'])[n %% 2 + 1]),"
+      + " 'localizedTemplates', jsonb_build_object('en', jsonb_build_object('header', 'Hello', 'body', 'Hello')))"
+      + " FROM (SELECT gen_random_uuid() AS id, n FROM generate_series(1, %d) n) seed",
+      Postgres.getTenant(), BENCHMARK_TEMPLATES));
+    Postgres.runSql(String.format("ANALYZE %s_mod_template_engine.template", Postgres.getTenant()));
+
+    for (String query : List.of("scope==orders", "templateResolver==handlebars", "description=\"*number 4242*\"",
+      "description all \"number 4242\"", "outputFormats=\"text/xml\"")) {
+      // the first request warms up the connection and the query plan
+      getTemplatesFor(query);
+      long start = System.nanoTime();
+      for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+        getTemplatesFor(query);
+      }
+      System.out.printf("%-40s %d ms/query%n", query,
+        (System.nanoTime() - start) / BENCHMARK_ITERATIONS / 1_000_000);
+    }
+  }
+
+  private void getTemplatesFor(String query) {
+    RestAssured.given()
+      .spec(spec)
+      .queryParam("query", query)
+      .queryParam("fields", "description")
+      .when()
+      .get(TEMPLATE_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_OK);
+  }
+
+  private JsonObject awaitJobCompletion(String jobId) throws InterruptedException {
+    for (int attempt = 0; attempt < 50; attempt++) {
+      JsonObject job = new JsonObject(RestAssured.given()
+        .spec(spec)
+        .when()
+        .get(JOBS_PATH + "/" + jobId)
+        .then()
+        .statusCode(HttpStatus.SC_OK)
+        .extract()
+        .asString());
+      if ("COMPLETED".equals(job.getString("status"))) {
+        return job;
+      }
+      Thread.sleep(200);
+    }
+    throw new AssertionError("Render job " + jobId + " did not complete");
+  }
+
   private String postTemplate(Template template) {
     return RestAssured.given()
       .spec(spec)
@@ -1025,4 +1747,32 @@ public class TemplateRequestTest {
     stubFor(get(urlPathEqualTo(LOCALE_REQUEST_PATH))
       .willReturn(okJson(toJson(localeSettings))));
   }
+
+  private static RenderJob createCompletedJob(Date completedAt) {
+    return new RenderJob()
+      .withId(UUID.randomUUID().toString())
+      .withTemplateId(UUID.randomUUID().toString())
+      .withLang(EN_LANG)
+      .withOutputFormat(TXT_OUTPUT_FORMAT)
+      .withStatus(RenderJob.Status.COMPLETED)
+      .withCompletedAt(completedAt)
+      .withTotalItems(1)
+      .withProcessedItems(1)
+      .withFailedItems(0);
+  }
+
+  private static Attachment createAttachmentContent(String hash) {
+    return new Attachment()
+      .withHash(hash)
+      .withContentType("image/png")
+      .withData("iVBORw0KGgo=");
+  }
+
+  private static Future<Void> backdateAttachmentContent(Attachment content, int days) {
+    String sql = String.format("UPDATE %s.template_attachment SET stored_date = now() - $1::int * interval '1 day'"
+      + " WHERE jsonb->>'hash' = $2", PostgresClient.convertToPsqlStandard(Postgres.getTenant()));
+    return PostgresClient.getInstance(vertx, Postgres.getTenant())
+      .execute(sql, Tuple.of(days, content.getHash()))
+      .mapEmpty();
+  }
 }
@@ -0,0 +1,70 @@
+package org.folio.template.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.Attachment;
+import org.folio.rest.jaxrs.model.Result;
+import org.folio.rest.jaxrs.model.TemplateProcessingResult;
+import org.junit.jupiter.api.Test;
+
+class RenderResultCacheTest {
+
+  @Test
+  void cachedResultIsReturnedForSameKey() {
+    RenderResultCache cache = new RenderResultCache(1024 * 1024, 60);
+    TemplateProcessingResult result = createResult("Hello Alex");
+
+    cache.put(createKey("hash-1"), result);
+
+    assertTrue(cache.isEnabled());
+    assertEquals(result, cache.get(createKey("hash-1")).orElseThrow());
+    assertTrue(cache.get(createKey("hash-2")).isEmpty());
+  }
+
+  @Test
+  void differentTemplateVersionIsNotServedFromCache() {
+    RenderResultCache cache = new RenderResultCache(1024 * 1024, 60);
+    cache.put(createKey("hash-1"), createResult("Hello Alex"));
+
+    RenderResultKey newerVersion = new RenderResultKey("tenant", "template-id", 2L, "en",
+      "text/html", "en-US", "UTC", "hash-1");
+
+    assertTrue(cache.get(newerVersion).isEmpty());
+  }
+
+  @Test
+  void disabledCacheNeverReturnsResults() {
+    RenderResultCache cache = new RenderResultCache(0, 60);
+    cache.put(createKey("hash-1"), createResult("Hello Alex"));
+
+    assertFalse(cache.isEnabled());
+    assertTrue(cache.get(createKey("hash-1")).isEmpty());
+  }
+
+  @Test
+  void weightAccountsForOutputAndAttachments() {
+    TemplateProcessingResult small = createResult("a");
+    TemplateProcessingResult large = createResult("a".repeat(1000));
+    large.getResult().withAttachments(List.of(new Attachment().withData("b".repeat(1000))));
+
+    int smallWeight = RenderResultCache.weigh(createKey("hash"), small);
+    int largeWeight = RenderResultCache.weigh(createKey("hash"), large);
+
+    assertEquals(smallWeight + 2 * 999 + 2 * 1000, largeWeight);
+  }
+
+  private static RenderResultKey createKey(String contextHash) {
+    return new RenderResultKey("tenant", "template-id", 1L, "en", "text/html", "en-US", "UTC",
+      contextHash);
+  }
+
+  private static TemplateProcessingResult createResult(String body) {
+    return new TemplateProcessingResult()
+      .withTemplateId("template-id")
+      .withResult(new Result().withHeader("Header").withBody(body));
+  }
+}
@@ -0,0 +1,77 @@
+package org.folio.template.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+class RequestCoalescerTest {
+
+  @Test
+  void identicalConcurrentRequestsShareLeaderResult() {
+    RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+    AtomicInteger executions = new AtomicInteger();
+    Promise<String> leaderPromise = Promise.promise();
+
+    Future<String> leader = coalescer.execute("key", () -> {
+      executions.incrementAndGet();
+      return leaderPromise.future();
+    });
+    Future<String> follower = coalescer.execute("key", () -> {
+      executions.incrementAndGet();
+      return Future.succeededFuture("follower");
+    });
+
+    assertSame(leader, follower);
+    leaderPromise.complete("leader");
+
+    assertEquals(1, executions.get());
+    assertEquals("leader", follower.result());
+    assertEquals(0, coalescer.inFlightCount());
+  }
+
+  @Test
+  void requestIsExecutedAgainAfterLeaderCompleted() {
+    RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+    AtomicInteger executions = new AtomicInteger();
+
+    coalescer.execute("key", () -> Future.succeededFuture("first" + executions.incrementAndGet()));
+    Future<String> second = coalescer.execute("key",
+      () -> Future.succeededFuture("second" + executions.incrementAndGet()));
+
+    assertEquals(2, executions.get());
+    assertEquals("second2", second.result());
+  }
+
+  @Test
+  void followersReceiveLeaderFailure() {
+    RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+    Promise<String> leaderPromise = Promise.promise();
+
+    coalescer.execute("key", leaderPromise::future);
+    Future<String> follower = coalescer.execute("key", () -> Future.succeededFuture("follower"));
+    leaderPromise.fail("render failed");
+
+    assertTrue(follower.failed());
+    assertEquals("render failed", follower.cause().getMessage());
+    assertEquals(0, coalescer.inFlightCount());
+  }
+
+  @Test
+  void requestThrowingExceptionFailsAndIsRemoved() {
+    RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+
+    Future<String> result = coalescer.execute("key", () -> {
+      throw new IllegalStateException("boom");
+    });
+
+    assertTrue(result.failed());
+    assertEquals(0, coalescer.inFlightCount());
+  }
+}
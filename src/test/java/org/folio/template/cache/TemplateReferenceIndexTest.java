@@ -0,0 +1,210 @@
+package org.folio.template.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.folio.template.client.CirculationStorageClient;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+class TemplateReferenceIndexTest {
+
+  private static final String TENANT = "tenant";
+
+  @Test
+  void missingIndexAnswersNothing() {
+    TemplateReferenceIndex index = new TemplateReferenceIndex(60, () -> 0);
+
+    assertTrue(index.isReferenced(TENANT, "template-1").isEmpty());
+  }
+
+  @Test
+  void templatesReferencedByAnyNoticeTypeAreFound() {
+    TemplateReferenceIndex index = new TemplateReferenceIndex(60, () -> 0);
+
+    index.replace(TENANT, new JsonArray()
+      .add(createPolicy("policy-1", "loanNotices", "template-1"))
+      .add(createPolicy("policy-2", "requestNotices", "template-2"))
+      .add(createPolicy("policy-3", "feeFineNotices", "template-3"))
+      .add(new JsonObject().put("id", "policy-4")), 0);
+
+    assertEquals(Optional.of(true), index.isReferenced(TENANT, "template-1"));
+    assertEquals(Optional.of(true), index.isReferenced(TENANT, "template-2"));
+    assertEquals(Optional.of(true), index.isReferenced(TENANT, "template-3"));
+    assertEquals(Optional.of(false), index.isReferenced(TENANT, "template-4"));
+    assertTrue(index.isReferenced("other-tenant", "template-1").isEmpty());
+  }
+
+  @Test
+  void staleIndexAnswersNothing() {
+    AtomicLong now = new AtomicLong(1000);
+    TemplateReferenceIndex index = new TemplateReferenceIndex(60, now::get);
+    index.replace(TENANT, new JsonArray().add(createPolicy("policy-1", "loanNotices", "template-1")), 1000);
+
+    now.addAndGet(59_999);
+    assertEquals(Optional.of(true), index.isReferenced(TENANT, "template-1"));
+
+    now.incrementAndGet();
+    assertTrue(index.isReferenced(TENANT, "template-1").isEmpty());
+  }
+
+  @Test
+  void disabledIndexAnswersNothing() {
+    TemplateReferenceIndex index = new TemplateReferenceIndex(0, () -> 0);
+    index.replace(TENANT, new JsonArray().add(createPolicy("policy-1", "loanNotices", "template-1")), 0);
+
+    assertFalse(index.isEnabled());
+    assertTrue(index.isReferenced(TENANT, "template-1").isEmpty());
+  }
+
+  @Test
+  void templateIdsAreComparedRegardlessOfCase() {
+    TemplateReferenceIndex index = new TemplateReferenceIndex(60, () -> 0);
+    index.replace(TENANT, new JsonArray()
+      .add(createPolicy("policy-1", "loanNotices", "C9C7D02F-873A-4608-98E7-5E2DF69A4A4F")), 0);
+
+    assertEquals(Optional.of(true), index.isReferenced(TENANT, "c9c7d02f-873a-4608-98e7-5e2df69a4a4f"));
+    assertEquals(Optional.of(true), index.isReferenced(TENANT, "C9C7D02F-873A-4608-98E7-5E2DF69A4A4F"));
+  }
+
+  @Test
+  void invalidatedIndexAnswersNothing() {
+    TemplateReferenceIndex index = new TemplateReferenceIndex(60, () -> 0);
+    index.replace(TENANT, new JsonArray().add(createPolicy("policy-1", "loanNotices", "template-1")), 0);
+
+    index.invalidate(TENANT);
+
+    assertTrue(index.isReferenced(TENANT, "template-1").isEmpty());
+  }
+
+  @Test
+  void lookUpRebuildsMissingIndexAndTrustsItWhileFresh() {
+    Vertx vertx = Vertx.vertx();
+    try {
+      JsonArray policies = new JsonArray();
+      for (int i = 0; i < 5; i++) {
+        policies.add(createPolicy("policy-" + i, "loanNotices", "template-" + i));
+      }
+      PolicyStorage storage = new PolicyStorage(vertx, policies);
+      TemplateReferenceIndex index = new TemplateReferenceIndex(60, 2, () -> 0);
+
+      assertEquals(true, index.lookUp(TENANT, "template-4", storage).result());
+      assertEquals(false, index.lookUp(TENANT, "template-5", storage).result());
+
+      assertEquals(List.of(0, 2, 4), storage.offsets);
+    } finally {
+      vertx.close();
+    }
+  }
+
+  @Test
+  void lookUpRebuildsStaleIndex() {
+    Vertx vertx = Vertx.vertx();
+    try {
+      AtomicLong now = new AtomicLong(0);
+      PolicyStorage storage = new PolicyStorage(vertx, new JsonArray()
+        .add(createPolicy("policy-1", "loanNotices", "template-1")));
+      TemplateReferenceIndex index = new TemplateReferenceIndex(60, now::get);
+
+      assertEquals(false, index.lookUp(TENANT, "template-2", storage).result());
+      storage.policies.add(createPolicy("policy-2", "requestNotices", "template-2"));
+      now.addAndGet(60_000);
+
+      assertEquals(true, index.lookUp(TENANT, "template-2", storage).result());
+      assertEquals(List.of(0, 0), storage.offsets);
+    } finally {
+      vertx.close();
+    }
+  }
+
+  @Test
+  void concurrentLookUpsShareOneRebuild() {
+    Vertx vertx = Vertx.vertx();
+    try {
+      Promise<JsonObject> page = Promise.promise();
+      PolicyStorage storage = new PolicyStorage(vertx, new JsonArray()) {
+        @Override
+        public Future<JsonObject> findPatronNoticePolicies(String query, int limit, int offset) {
+          super.findPatronNoticePolicies(query, limit, offset);
+          return page.future();
+        }
+      };
+      TemplateReferenceIndex index = new TemplateReferenceIndex(60, () -> 0);
+
+      Future<Boolean> first = index.lookUp(TENANT, "template-1", storage);
+      Future<Boolean> second = index.lookUp(TENANT, "template-2", storage);
+      page.complete(new JsonObject()
+        .put("patronNoticePolicies", new JsonArray().add(createPolicy("policy-1", "loanNotices", "template-1")))
+        .put("totalRecords", 1));
+
+      assertEquals(true, first.result());
+      assertEquals(false, second.result());
+      assertEquals(List.of(0), storage.offsets);
+    } finally {
+      vertx.close();
+    }
+  }
+
+  @Test
+  void lookUpFailsWhenPoliciesCannotBeRead() {
+    Vertx vertx = Vertx.vertx();
+    try {
+      PolicyStorage storage = new PolicyStorage(vertx, new JsonArray()) {
+        @Override
+        public Future<JsonObject> findPatronNoticePolicies(String query, int limit, int offset) {
+          return Future.succeededFuture(new JsonObject().put("totalRecords", 1));
+        }
+      };
+      TemplateReferenceIndex index = new TemplateReferenceIndex(60, () -> 0);
+
+      assertTrue(index.lookUp(TENANT, "template-1", storage).failed());
+      assertTrue(index.isReferenced(TENANT, "template-1").isEmpty());
+    } finally {
+      vertx.close();
+    }
+  }
+
+  private static JsonObject createPolicy(String id, String noticeType, String templateId) {
+    return new JsonObject()
+      .put("id", id)
+      .put(noticeType, new JsonArray().add(new JsonObject()
+        .put("templateId", templateId)
+        .put("format", "Email")));
+  }
+
+  /**
+   * Stand-in for circulation storage serving the policies page by page
+   */
+  private static class PolicyStorage extends CirculationStorageClient {
+
+    private final JsonArray policies;
+    private final List<Integer> offsets = new ArrayList<>();
+
+    PolicyStorage(Vertx vertx, JsonArray policies) {
+      super(vertx, Map.of());
+      this.policies = policies;
+    }
+
+    @Override
+    public Future<JsonObject> findPatronNoticePolicies(String query, int limit, int offset) {
+      offsets.add(offset);
+      List<Object> page = policies.getList().subList(Math.min(offset, policies.size()),
+        Math.min(offset + limit, policies.size()));
+      return Future.succeededFuture(new JsonObject()
+        .put("patronNoticePolicies", new JsonArray(new ArrayList<>(page)))
+        .put("totalRecords", policies.size()));
+    }
+  }
+}
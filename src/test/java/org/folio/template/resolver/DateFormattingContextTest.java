@@ -0,0 +1,78 @@
+package org.folio.template.resolver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.folio.template.util.JsonValues;
+import org.folio.template.util.RenderDateFormatter;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+class DateFormattingContextTest {
+
+  private static final String INPUT_DATE = "2019-06-18T14:04:33.205Z";
+
+  @Test
+  void missingDateTimeValuesAreDerivedFromDates() {
+    Map<String, Object> context = wrap(new JsonObject()
+      .put("rootDate", INPUT_DATE)
+      .put("emptyDate", "")
+      .put("blankDate", "   ")
+      .putNull("nullDate")
+      .put("loan", new JsonObject()
+        .put("dueDate", INPUT_DATE)
+        .put("existingDate", INPUT_DATE)
+        .put("existingDateTime", "unchanged")));
+
+    assertEquals("6/18/19, 2:04 PM", context.get("rootDateTime"));
+    assertTrue(context.containsKey("rootDateTime"));
+    assertFalse(context.containsKey("emptyDateTime"));
+    assertFalse(context.containsKey("blankDateTime"));
+    assertFalse(context.containsKey("nullDateTime"));
+    assertNull(context.get("nullDateTime"));
+
+    Map<?, ?> loan = (Map<?, ?>) context.get("loan");
+    assertEquals("6/18/19, 2:04 PM", loan.get("dueDateTime"));
+    assertEquals("unchanged", loan.get("existingDateTime"));
+  }
+
+  @Test
+  void datesAreFormattedOnLookup() {
+    Map<String, Object> context = wrap(new JsonObject()
+      .put("loans", new JsonArray()
+        .add(new JsonObject()
+          .put("dueDate", INPUT_DATE)
+          .put("returnDetailedDateTime", INPUT_DATE)
+          .put("invalidDate", "not a date")
+          .put("title", INPUT_DATE))));
+
+    Map<?, ?> loan = (Map<?, ?>) ((List<?>) context.get("loans")).get(0);
+
+    assertEquals("6/18/19", loan.get("dueDate"));
+    assertEquals("June 18, 2019 at 2:04 PM", loan.get("returnDetailedDateTime"));
+    assertEquals("not a date", loan.get("invalidDate"));
+    assertEquals(INPUT_DATE, loan.get("title"));
+  }
+
+  @Test
+  void underlyingContextIsNotModified() {
+    JsonObject json = new JsonObject().put("loan", new JsonObject().put("dueDate", INPUT_DATE));
+    Map<String, Object> plain = JsonValues.toPlainMap(json);
+    Map<String, Object> context = new DateFormattingContext(plain, new RenderDateFormatter("en-US", "UTC"));
+
+    ((Map<?, ?>) context.get("loan")).get("dueDateTime");
+
+    assertEquals(Map.of("loan", Map.of("dueDate", INPUT_DATE)), plain);
+  }
+
+  private static Map<String, Object> wrap(JsonObject json) {
+    return new DateFormattingContext(JsonValues.toPlainMap(json), new RenderDateFormatter("en-US", "UTC"));
+  }
+}
@@ -0,0 +1,120 @@
+package org.folio.template.resolver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.folio.rest.jaxrs.model.LocalizedTemplatesProperty;
+import org.folio.template.RenderLimitExceededException;
+import org.folio.template.util.TemplateContextPreProcessor;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.serviceproxy.ServiceException;
+
+class HandlebarsTemplateResolverTest {
+
+  private final HandlebarsTemplateResolver resolver = new HandlebarsTemplateResolver(10_000, 10_000);
+
+  @Test
+  void templateIsRenderedWithContext() {
+    JsonObject template = new JsonObject()
+      .put("header", "Hello {{user.name}}")
+      .put("body", "{{#each items}}{{this}};{{/each}}{{{user.barcodeImage}}}");
+    JsonObject context = new JsonObject()
+      .put("user", new JsonObject()
+        .put("name", "<Patron>")
+        .put("barcodeImage", "<img src='cid:barcode_1'>"))
+      .put("items", new JsonArray().add("a").add("b"));
+
+    JsonObject result = render(template, context);
+
+    assertEquals("Hello &lt;Patron&gt;", result.getString("header"));
+    assertEquals("a;b;<img src='cid:barcode_1'>", result.getString("body"));
+  }
+
+  @Test
+  void generatedBarcodeImagesAreRenderedAsHtml() {
+    JsonObject template = new JsonObject()
+      .put("body", "{{item.barcodeImage}}|{{#each items}}{{instanceHridImage}}{{/each}}|{{item.title}}");
+    JsonObject context = new JsonObject()
+      .put("item", new JsonObject()
+        .put("barcode", "123")
+        .put("title", "<b>"))
+      .put("items", new JsonArray().add(new JsonObject().put("instanceHrid", "in1")));
+    TemplateContextPreProcessor preProcessor = new TemplateContextPreProcessor(new LocalizedTemplatesProperty()
+      .withBody(template.getString("body")), context);
+    preProcessor.process();
+
+    JsonObject result = render(template, preProcessor.getContext());
+
+    assertEquals("<img src='cid:barcode_123' alt='barcode_123'>|<img src='cid:barcode_in1' alt='barcode_in1'>|"
+      + "&lt;b&gt;", result.getString("body"));
+  }
+
+  @Test
+  void suppliedBarcodeImageValuesAreEscapedOnce() {
+    JsonObject template = new JsonObject()
+      .put("body", "{{item.barcodeImage}}|{{{item.barcodeImage}}}");
+    JsonObject context = new JsonObject()
+      .put("item", new JsonObject().put("barcodeImage", "<script>alert(1)</script>"));
+    TemplateContextPreProcessor preProcessor = new TemplateContextPreProcessor(new LocalizedTemplatesProperty()
+      .withBody(template.getString("body")), context);
+    preProcessor.process();
+
+    JsonObject result = render(template, preProcessor.getContext());
+
+    assertEquals("&lt;script&gt;alert(1)&lt;/script&gt;|&lt;script&gt;alert(1)&lt;/script&gt;",
+      result.getString("body"));
+  }
+
+  @Test
+  void datesAreFormattedWithTenantLocale() {
+    JsonObject template = new JsonObject()
+      .put("body", "{{formatDate loan.dueDate}}|{{formatDate loan.dueDate \"dateTime\"}}|"
+        + "{{formatDate (addDays loan.dueDate 7)}}|{{formatDate loan.returnDate}}");
+    JsonObject context = new JsonObject()
+      .put("loan", new JsonObject()
+        .put("dueDate", "2019-06-18T14:04:33.205Z")
+        .put("returnDate", "not a date"));
+
+    JsonObject result = render(template, context);
+
+    assertEquals("6/18/19|6/18/19, 2:04 PM|6/25/19|not a date",
+      result.getString("body").replace(' ', ' '));
+  }
+
+  @Test
+  void numbersAreFormattedAndConditionalsAreEvaluated() {
+    JsonObject template = new JsonObject()
+      .put("body", "{{formatNumber fee.amount \"#,##0.00\"}}|{{#if (gt fee.amount 100)}}high{{else}}low{{/if}}");
+    JsonObject context = new JsonObject()
+      .put("fee", new JsonObject().put("amount", 1234.5));
+
+    assertEquals("1,234.50|high", render(template, context).getString("body"));
+  }
+
+  @Test
+  void renderIsAbortedWhenOutputIsTooLarge() {
+    HandlebarsTemplateResolver limitedResolver = new HandlebarsTemplateResolver(10_000, 50);
+    JsonObject template = new JsonObject()
+      .put("body", "{{#each items}}{{this}}{{/each}}");
+    JsonObject context = new JsonObject()
+      .put("items", new JsonArray(Collections.nCopies(30, "abc")));
+
+    Future<JsonObject> result = limitedResolver.processTemplate(template, context, "text/plain", "en-US", "UTC");
+
+    assertTrue(result.failed());
+    ServiceException exception = (ServiceException) result.cause();
+    assertEquals(RenderLimitExceededException.FAILURE_CODE, exception.failureCode());
+  }
+
+  private JsonObject render(JsonObject template, JsonObject context) {
+    Future<JsonObject> result = resolver.processTemplate(template, context, "text/html", "en-US", "UTC");
+    assertTrue(result.succeeded(), () -> String.valueOf(result.cause()));
+    return result.result();
+  }
+}
@@ -0,0 +1,137 @@
+package org.folio.template.resolver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.folio.rest.jaxrs.model.LocalizedTemplatesProperty;
+import org.folio.template.RenderLimitExceededException;
+import org.folio.template.util.TemplateContextPreProcessor;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.serviceproxy.ServiceException;
+
+class MustacheTemplateResolverTest {
+
+  @Test
+  void templateIsRenderedWithinLimits() {
+    MustacheTemplateResolver resolver = new MustacheTemplateResolver(10_000, 100);
+    JsonObject template = new JsonObject()
+      .put("header", "Hello {{name}}")
+      .put("body", "{{#items}}{{.}};{{/items}}");
+    JsonObject context = new JsonObject()
+      .put("name", "Patron")
+      .put("items", new JsonArray().add("a").add("b"));
+
+    Future<JsonObject> result = resolver.processTemplate(template, context, "text/plain", "en-US", "UTC");
+
+    assertTrue(result.succeeded());
+    assertEquals("Hello Patron", result.result().getString("header"));
+    assertEquals("a;b;", result.result().getString("body"));
+  }
+
+  @Test
+  void datesAreFormattedWhenRendered() {
+    MustacheTemplateResolver resolver = new MustacheTemplateResolver(10_000, 0);
+    JsonObject template = new JsonObject()
+      .put("body", "{{#loans}}{{dueDate}} {{dueDateTime}};{{/loans}}");
+    JsonObject context = new JsonObject()
+      .put("loans", new JsonArray()
+        .add(new JsonObject().put("dueDate", "2019-06-18T14:04:33.205Z")));
+
+    Future<JsonObject> result = resolver.processTemplate(template, context, "text/plain", "de-DE", "Europe/Berlin");
+
+    assertTrue(result.succeeded());
+    assertEquals("18.06.19 18.06.19, 16:04;", result.result().getString("body"));
+    assertEquals("2019-06-18T14:04:33.205Z", context.getJsonArray("loans").getJsonObject(0).getString("dueDate"));
+  }
+
+  @Test
+  void barcodeImageVariablesAreNotEscaped() {
+    MustacheTemplateResolver resolver = new MustacheTemplateResolver(10_000, 0);
+    String image = "<img src='cid:barcode_1' alt='barcode_1'>";
+    JsonObject template = new JsonObject()
+      .put("body", "{{item.barcodeImage}}|{{item.instanceHridImage}}|{{item.title}}");
+    JsonObject context = new JsonObject()
+      .put("item", new JsonObject()
+        .put("barcodeImage", image)
+        .put("instanceHridImage", image)
+        .put("title", "<b>"));
+
+    Future<JsonObject> result = resolver.processTemplate(template, context, "text/html", "en-US", "UTC");
+
+    assertTrue(result.succeeded());
+    assertEquals(image + "|" + image + "|&lt;b&gt;", result.result().getString("body"));
+  }
+
+  @Test
+  void suppliedBarcodeImageValuesAreRenderedEscapedWhateverTheirTag() {
+    MustacheTemplateResolver resolver = new MustacheTemplateResolver(10_000, 0);
+    String body = "{{item2.barcodeImage}}|{{ loan_item.barcodeImage }}";
+    JsonObject context = new JsonObject()
+      .put("item2", new JsonObject().put("barcodeImage", "<script>alert(1)</script>"))
+      .put("loan_item", new JsonObject().put("barcodeImage", "<script>alert(2)</script>"));
+    TemplateContextPreProcessor preProcessor =
+      new TemplateContextPreProcessor(new LocalizedTemplatesProperty().withBody(body), context);
+    preProcessor.process();
+
+    Future<JsonObject> result = resolver.processTemplate(new JsonObject().put("body", body),
+      preProcessor.getContext(), "text/html", "en-US", "UTC");
+
+    assertTrue(result.succeeded());
+    assertEquals("&lt;script&gt;alert(1)&lt;/script&gt;|&lt;script&gt;alert(2)&lt;/script&gt;",
+      result.result().getString("body"));
+  }
+
+  @Test
+  void renderIsAbortedWhenOutputIsTooLarge() {
+    MustacheTemplateResolver resolver = new MustacheTemplateResolver(10_000, 100);
+    JsonObject template = new JsonObject()
+      .put("header", "{{#items}}{{.}}{{/items}}")
+      .put("body", "{{#items}}{{.}}{{/items}}");
+    JsonObject context = new JsonObject()
+      .put("items", new JsonArray(Collections.nCopies(30, "abc")));
+
+    Future<JsonObject> result = resolver.processTemplate(template, context, "text/plain", "en-US", "UTC");
+
+    assertLimitExceeded(result, "Rendered template exceeds the maximum output size of 100 characters");
+  }
+
+  @Test
+  void renderIsAbortedWhenItTakesTooLong() {
+    MustacheTemplateResolver resolver = new MustacheTemplateResolver(1, 0);
+    JsonObject template = new JsonObject()
+      .put("body", "{{#items}}{{#items}}{{.}}{{/items}}{{/items}}");
+    JsonObject context = new JsonObject()
+      .put("items", new JsonArray(Collections.nCopies(2_000, "item")));
+
+    Future<JsonObject> result = resolver.processTemplate(template, context, "text/plain", "en-US", "UTC");
+
+    assertLimitExceeded(result, "Rendering the template took longer than 1 ms");
+  }
+
+  @Test
+  void renderThatWritesNothingIsAbortedWhenItTakesTooLong() {
+    MustacheTemplateResolver resolver = new MustacheTemplateResolver(1, 0);
+    JsonObject template = new JsonObject()
+      .put("body", "{{#items}}{{#items}}{{missing}}{{/items}}{{/items}}");
+    JsonObject context = new JsonObject()
+      .put("items", new JsonArray(Collections.nCopies(2_000, new JsonObject().put("name", "item"))));
+
+    Future<JsonObject> result = resolver.processTemplate(template, context, "text/plain", "en-US", "UTC");
+
+    assertLimitExceeded(result, "Rendering the template took longer than 1 ms");
+  }
+
+  private static void assertLimitExceeded(Future<JsonObject> result, String message) {
+    assertTrue(result.failed());
+    ServiceException exception = assertInstanceOf(ServiceException.class, result.cause());
+    assertEquals(RenderLimitExceededException.FAILURE_CODE, exception.failureCode());
+    assertEquals(message, exception.getMessage());
+  }
+}
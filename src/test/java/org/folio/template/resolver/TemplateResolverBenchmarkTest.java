@@ -0,0 +1,75 @@
+package org.folio.template.resolver;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Compares render throughput of the Mustache and Handlebars resolvers on a notice-like template. Run with
+ * {@code mvn test -Dtest=TemplateResolverBenchmarkTest -Dbenchmark=true}, results are printed to stdout.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TemplateResolverBenchmarkTest {
+
+  private static final int WARM_UP_ITERATIONS = 2_000;
+  private static final int ITERATIONS = 20_000;
+  private static final int LOANS = 20;
+
+  @Test
+  void compareResolvers() {
+    JsonObject context = createContext();
+    JsonObject mustacheTemplate = new JsonObject()
+      .put("header", "Overdue items for {{user.firstName}} {{user.lastName}}")
+      .put("body", "{{#loans}}<p>{{item.title}} ({{item.barcode}}) due {{loan.dueDate}}</p>{{/loans}}");
+    JsonObject handlebarsTemplate = new JsonObject()
+      .put("header", "Overdue items for {{user.firstName}} {{user.lastName}}")
+      .put("body", "{{#each loans}}<p>{{item.title}} ({{item.barcode}}) due {{loan.dueDate}}</p>{{/each}}");
+
+    long mustacheNanos = measure(new MustacheTemplateResolver(0, 0), mustacheTemplate, context);
+    long handlebarsNanos = measure(new HandlebarsTemplateResolver(0, 0), handlebarsTemplate, context);
+
+    System.out.printf("mustache:   %d us/render%n", TimeUnit.NANOSECONDS.toMicros(mustacheNanos / ITERATIONS));
+    System.out.printf("handlebars: %d us/render%n", TimeUnit.NANOSECONDS.toMicros(handlebarsNanos / ITERATIONS));
+    assertTrue(mustacheNanos > 0 && handlebarsNanos > 0);
+  }
+
+  private static long measure(TemplateResolver resolver, JsonObject template, JsonObject context) {
+    for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+      render(resolver, template, context);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      render(resolver, template, context);
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static void render(TemplateResolver resolver, JsonObject template, JsonObject context) {
+    if (resolver.processTemplate(template, context, "text/html", "en-US", "UTC").failed()) {
+      throw new IllegalStateException("Render failed");
+    }
+  }
+
+  private static JsonObject createContext() {
+    JsonArray loans = new JsonArray();
+    for (int i = 0; i < LOANS; i++) {
+      loans.add(new JsonObject()
+        .put("item", new JsonObject()
+          .put("title", "Title " + i)
+          .put("barcode", "00000" + i))
+        .put("loan", new JsonObject()
+          .put("dueDate", "6/18/19")));
+    }
+    return new JsonObject()
+      .put("user", new JsonObject()
+        .put("firstName", "Jane")
+        .put("lastName", "Doe"))
+      .put("loans", loans);
+  }
+}
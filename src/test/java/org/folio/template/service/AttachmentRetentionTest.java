@@ -0,0 +1,73 @@
+package org.folio.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.folio.rest.jaxrs.model.Attachment;
+import org.folio.template.dao.AttachmentDao;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+
+class AttachmentRetentionTest {
+
+  private static final String TENANT = "tenant";
+
+  @Test
+  void attachmentsOfTenantArePurgedOncePerInterval() {
+    AtomicLong now = new AtomicLong(1000);
+    AttachmentRetention retention = new AttachmentRetention(30, now::get);
+    AttachmentStore store = new AttachmentStore();
+    AttachmentStore otherStore = new AttachmentStore();
+
+    retention.purgeIfDue(TENANT, store);
+    retention.purgeIfDue(TENANT, store);
+    retention.purgeIfDue("other-tenant", otherStore);
+    assertEquals(List.of(30), store.purges);
+    assertEquals(List.of(30), otherStore.purges);
+
+    now.addAndGet(TimeUnit.HOURS.toMillis(1));
+    retention.purgeIfDue(TENANT, store);
+    assertEquals(List.of(30, 30), store.purges);
+  }
+
+  @Test
+  void attachmentsAreKeptWhenRetentionIsDisabled() {
+    AttachmentRetention retention = new AttachmentRetention(0, () -> 0);
+    AttachmentStore store = new AttachmentStore();
+
+    retention.purgeIfDue(TENANT, store);
+
+    assertEquals(List.of(), store.purges);
+  }
+
+  /**
+   * Stand-in for the attachment store recording the retention of each purge
+   */
+  private static class AttachmentStore implements AttachmentDao {
+
+    private final List<Integer> purges = new ArrayList<>();
+
+    @Override
+    public Future<Void> saveContents(Collection<Attachment> contents) {
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<Optional<Attachment>> getContent(String hash) {
+      return Future.succeededFuture(Optional.empty());
+    }
+
+    @Override
+    public Future<Integer> purgeContents(int retentionDays) {
+      purges.add(retentionDays);
+      return Future.succeededFuture(0);
+    }
+  }
+}
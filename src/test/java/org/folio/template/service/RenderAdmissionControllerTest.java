@@ -0,0 +1,141 @@
+package org.folio.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.folio.template.RenderCapacityExceededException;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+class RenderAdmissionControllerTest {
+
+  @Test
+  void tasksAreQueuedWhenConcurrencyIsExhausted() {
+    RenderAdmissionController controller = new RenderAdmissionController("test", 1, 1, 10, 10, 1, Map.of());
+    Promise<String> first = Promise.promise();
+    Promise<String> second = Promise.promise();
+
+    Future<String> firstResult = controller.submit("tenant", first::future);
+    Future<String> secondResult = controller.submit("tenant", second::future);
+
+    assertEquals(1, controller.getRunning());
+    assertEquals(1, controller.getQueued());
+
+    first.complete("first");
+    assertEquals("first", firstResult.result());
+    assertEquals(1, controller.getRunning());
+    assertEquals(0, controller.getQueued());
+
+    second.complete("second");
+    assertEquals("second", secondResult.result());
+    assertEquals(0, controller.getRunning());
+  }
+
+  @Test
+  void tenantIsRejectedWith429WhenItsQueueIsFull() {
+    RenderAdmissionController controller = new RenderAdmissionController("test", 10, 1, 10, 1, 3, Map.of());
+
+    controller.submit("tenant", Promise.<String>promise()::future);
+    controller.submit("tenant", Promise.<String>promise()::future);
+    Future<String> rejected = controller.submit("tenant", Promise.<String>promise()::future);
+
+    assertTrue(rejected.failed());
+    RenderCapacityExceededException exception =
+      assertInstanceOf(RenderCapacityExceededException.class, rejected.cause());
+    assertEquals(429, exception.getStatus());
+    assertEquals(3, exception.getRetryAfterSeconds());
+  }
+
+  @Test
+  void requestIsRejectedWith503WhenGlobalQueueIsFull() {
+    RenderAdmissionController controller = new RenderAdmissionController("test", 1, 1, 1, 10, 1, Map.of());
+
+    controller.submit("tenant1", Promise.<String>promise()::future);
+    controller.submit("tenant2", Promise.<String>promise()::future);
+    Future<String> rejected = controller.submit("tenant3", Promise.<String>promise()::future);
+
+    RenderCapacityExceededException exception =
+      assertInstanceOf(RenderCapacityExceededException.class, rejected.cause());
+    assertEquals(503, exception.getStatus());
+  }
+
+  @Test
+  void busyTenantDoesNotBlockOtherTenants() {
+    RenderAdmissionController controller = new RenderAdmissionController("test", 2, 1, 10, 10, 1, Map.of());
+
+    controller.submit("busy", Promise.<String>promise()::future);
+    Future<String> queued = controller.submit("busy", Promise.<String>promise()::future);
+    Future<String> other = controller.submit("other", () -> Future.succeededFuture("other"));
+
+    assertFalse(queued.isComplete());
+    assertEquals("other", other.result());
+  }
+
+  @Test
+  void failingTaskReleasesCapacity() {
+    RenderAdmissionController controller = new RenderAdmissionController("test", 1, 1, 10, 10, 1, Map.of());
+
+    Future<String> failed = controller.submit("tenant", () -> {
+      throw new IllegalStateException("boom");
+    });
+
+    assertTrue(failed.failed());
+    assertEquals(0, controller.getRunning());
+  }
+
+  @Test
+  void freedCapacityIsSharedFairlyBetweenTenants() {
+    RenderAdmissionController controller = new RenderAdmissionController("test", 1, 1, 100, 100, 1, Map.of());
+    List<String> started = new ArrayList<>();
+    Promise<String> blocker = Promise.promise();
+    controller.submit("blocker", blocker::future);
+    for (int i = 0; i < 3; i++) {
+      controller.submit("burst", () -> {
+        started.add("burst");
+        return Future.succeededFuture();
+      });
+    }
+    controller.submit("quiet", () -> {
+      started.add("quiet");
+      return Future.succeededFuture();
+    });
+
+    blocker.complete();
+
+    assertEquals(List.of("burst", "quiet", "burst", "burst"), started);
+  }
+
+  @Test
+  void freedCapacityIsSharedByTenantWeight() {
+    RenderAdmissionController controller = new RenderAdmissionController("test", 1, 1, 100, 100, 1,
+      Map.of("heavy", 2));
+    List<String> started = new ArrayList<>();
+    Promise<String> blocker = Promise.promise();
+    controller.submit("blocker", blocker::future);
+    for (String tenant : List.of("light", "light", "light", "heavy", "heavy", "heavy", "heavy")) {
+      controller.submit(tenant, () -> {
+        started.add(tenant);
+        return Future.succeededFuture();
+      });
+    }
+
+    blocker.complete();
+
+    assertEquals(List.of("heavy", "light", "heavy", "heavy", "light", "heavy", "light"), started);
+  }
+
+  @Test
+  void tenantWeightsAreParsed() {
+    assertEquals(Map.of("diku", 3, "college", 1),
+      RenderAdmissionController.parseTenantWeights(" diku:3, college:1,broken,other:x,zero:0"));
+    assertTrue(RenderAdmissionController.parseTenantWeights("").isEmpty());
+  }
+}
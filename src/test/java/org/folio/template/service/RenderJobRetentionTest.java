@@ -0,0 +1,96 @@
+package org.folio.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.folio.rest.jaxrs.model.RenderJob;
+import org.folio.rest.jaxrs.model.RenderJobItem;
+import org.folio.template.dao.RenderJobDao;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+
+class RenderJobRetentionTest {
+
+  private static final String TENANT = "tenant";
+
+  @Test
+  void jobsOfTenantArePurgedOncePerInterval() {
+    AtomicLong now = new AtomicLong(1000);
+    RenderJobRetention retention = new RenderJobRetention(7, now::get);
+    JobStore store = new JobStore();
+
+    retention.purgeIfDue(TENANT, store);
+    retention.purgeIfDue(TENANT, store);
+    assertEquals(List.of(7), store.purges);
+
+    now.addAndGet(TimeUnit.HOURS.toMillis(1));
+    retention.purgeIfDue(TENANT, store);
+    assertEquals(List.of(7, 7), store.purges);
+  }
+
+  @Test
+  void jobsAreKeptWhenRetentionIsDisabled() {
+    RenderJobRetention retention = new RenderJobRetention(0, () -> 0);
+    JobStore store = new JobStore();
+
+    retention.purgeIfDue(TENANT, store);
+
+    assertEquals(List.of(), store.purges);
+  }
+
+  /**
+   * Stand-in for the render job store recording the retention of each purge
+   */
+  private static class JobStore implements RenderJobDao {
+
+    private final List<Integer> purges = new ArrayList<>();
+
+    @Override
+    public Future<Void> createJob(RenderJob job, List<RenderJobItem> items) {
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<Optional<RenderJob>> getJobById(String id) {
+      return Future.succeededFuture(Optional.empty());
+    }
+
+    @Override
+    public Future<Boolean> acquireLease(String id, String leaseToken, Date leaseExpiresAt) {
+      return Future.succeededFuture(false);
+    }
+
+    @Override
+    public Future<Boolean> renewLease(String id, String leaseToken, Date leaseExpiresAt) {
+      return Future.succeededFuture(false);
+    }
+
+    @Override
+    public Future<List<String>> findAbandonedJobIds(int limit) {
+      return Future.succeededFuture(List.of());
+    }
+
+    @Override
+    public Future<List<RenderJobItem>> getItems(String jobId, int fromSequence, int limit, boolean withContext) {
+      return Future.succeededFuture(List.of());
+    }
+
+    @Override
+    public Future<Boolean> saveCheckpoint(RenderJob job, List<RenderJobItem> items) {
+      return Future.succeededFuture(false);
+    }
+
+    @Override
+    public Future<Integer> purgeJobs(int retentionDays) {
+      purges.add(retentionDays);
+      return Future.succeededFuture(0);
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package org.folio.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.folio.rest.jaxrs.model.LocalizedTemplates;
+import org.folio.rest.jaxrs.model.LocalizedTemplatesProperty;
+import org.folio.rest.jaxrs.model.Template;
+import org.folio.rest.jaxrs.model.TemplatesCollection;
+import org.folio.template.dao.StoredTemplate;
+import org.folio.template.dao.TemplateDao;
+import org.folio.template.resolver.LocalTemplateResolvers;
+import org.folio.template.resolver.MustacheTemplateResolver;
+import org.folio.template.resolver.TemplateResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+class TemplateWarmUpTest {
+
+  private static final String ADDRESS = "template-resolver.warm-up-test.queue";
+
+  private final Vertx vertx = Vertx.vertx();
+
+  @AfterEach
+  void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  void allTemplatesOfTenantAreCompiledOnce() throws Exception {
+    List<String> compiled = new CopyOnWriteArrayList<>();
+    LocalTemplateResolvers.register(ADDRESS, new RecordingResolver(compiled));
+    List<Template> templates = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      templates.add(template("body " + i));
+    }
+    TemplateWarmUp warmUp = new TemplateWarmUp(true);
+
+    warmUp.warmUpTenant(vertx, "tenant", new ListTemplateDao(templates), Map.of("test", ADDRESS));
+    warmUp.warmUpTenant(vertx, "tenant", new ListTemplateDao(templates), Map.of("test", ADDRESS));
+
+    awaitSize(compiled, 150);
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertEquals(150, compiled.size());
+  }
+
+  @Test
+  void warmUpStopsWhenCompiledTemplateCacheIsFull() throws Exception {
+    List<String> compiled = new CopyOnWriteArrayList<>();
+    LocalTemplateResolvers.register(ADDRESS, new RecordingResolver(compiled));
+    List<Template> templates = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      templates.add(template("body " + i));
+    }
+    // header and body of each template take one cache entry each
+    TemplateWarmUp warmUp = new TemplateWarmUp(true, 101);
+
+    warmUp.warmUpTenant(vertx, "tenant", new ListTemplateDao(templates), Map.of("test", ADDRESS));
+
+    awaitSize(compiled, 50);
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertEquals(50, compiled.size());
+  }
+
+  @Test
+  void tenantsShareCompiledTemplateCache() throws Exception {
+    List<String> compiled = new CopyOnWriteArrayList<>();
+    LocalTemplateResolvers.register(ADDRESS, new RecordingResolver(compiled));
+    List<Template> firstTenantTemplates = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      firstTenantTemplates.add(template("first " + i));
+    }
+    List<Template> secondTenantTemplates = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      secondTenantTemplates.add(template("second " + i));
+    }
+    TemplateWarmUp warmUp = new TemplateWarmUp(true, 101);
+
+    warmUp.warmUpTenant(vertx, "first", new ListTemplateDao(firstTenantTemplates), Map.of("test", ADDRESS));
+    awaitSize(compiled, 40);
+    warmUp.warmUpTenant(vertx, "second", new ListTemplateDao(secondTenantTemplates), Map.of("test", ADDRESS));
+
+    // the first tenant takes 80 entries, 10 templates of the second tenant fit into the remaining 21
+    awaitSize(compiled, 50);
+    TimeUnit.MILLISECONDS.sleep(100);
+    assertEquals(50, compiled.size());
+  }
+
+  @Test
+  void nothingIsCompiledWhenDisabled() throws Exception {
+    List<String> compiled = new CopyOnWriteArrayList<>();
+    LocalTemplateResolvers.register(ADDRESS, new RecordingResolver(compiled));
+
+    new TemplateWarmUp(false).precompile(vertx, template("body"), Map.of("test", ADDRESS))
+      .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+    assertEquals(Collections.emptyList(), compiled);
+  }
+
+  @Test
+  void compileFailsForTemplateThatDoesNotCompile() {
+    LocalTemplateResolvers.register(ADDRESS, new MustacheTemplateResolver());
+
+    Future<Void> compiled = new TemplateWarmUp(false).compile(vertx, template("{{#loans}}unclosed"),
+      Map.of("test", ADDRESS));
+
+    assertThrows(ExecutionException.class,
+      () -> compiled.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS));
+  }
+
+  private static Template template(String body) {
+    return new Template()
+      .withTemplateResolver("test")
+      .withLocalizedTemplates(new LocalizedTemplates()
+        .withAdditionalProperty("en", new LocalizedTemplatesProperty().withHeader("header").withBody(body)));
+  }
+
+  private static void awaitSize(List<String> list, int size) throws InterruptedException {
+    for (int i = 0; i < 100 && list.size() < size; i++) {
+      TimeUnit.MILLISECONDS.sleep(50);
+    }
+  }
+
+  private record RecordingResolver(List<String> compiled) implements TemplateResolver {
+
+    @Override
+    public Future<JsonObject> processTemplate(JsonObject templateContent, JsonObject context,
+      String outputFormat, String languageTag, String timeZoneId) {
+
+      return Future.failedFuture("not used");
+    }
+
+    @Override
+    public Future<Void> precompile(JsonObject templateContent) {
+      compiled.add(templateContent.getString("body"));
+      return Future.succeededFuture();
+    }
+  }
+
+  private record ListTemplateDao(List<Template> templates) implements TemplateDao {
+
+    @Override
+    public Future<List<Template>> getTemplates(String query, int offset, int limit) {
+      return Future.succeededFuture(templates.subList(Math.min(offset, templates.size()),
+        Math.min(offset + limit, templates.size())));
+    }
+
+    @Override
+    public Future<TemplatesCollection> getTemplatesCollection(String query, int offset, int limit,
+      List<String> fields) {
+
+      return Future.succeededFuture(new TemplatesCollection());
+    }
+
+    @Override
+    public Future<List<String>> getTemplateDocuments(String afterId, int limit) {
+      return Future.succeededFuture(List.of());
+    }
+
+    @Override
+    public Future<Optional<Template>> getTemplateById(String id) {
+      return Future.succeededFuture(Optional.empty());
+    }
+
+    @Override
+    public Future<List<Template>> getTemplatesByIds(List<String> ids) {
+      return Future.succeededFuture(List.of());
+    }
+
+    @Override
+    public Future<Optional<StoredTemplate>> getStoredTemplateById(String id) {
+      return Future.succeededFuture(Optional.empty());
+    }
+
+    @Override
+    public Future<Optional<String>> getTemplateDigest(String id) {
+      return Future.succeededFuture(Optional.empty());
+    }
+
+    @Override
+    public Future<String> addTemplate(Template template) {
+      return Future.succeededFuture(template.getId());
+    }
+
+    @Override
+    public Future<Void> saveTemplates(List<Template> templates) {
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<Optional<String>> updateTemplate(Template template, List<String> expectedDigests) {
+      return Future.succeededFuture(Optional.empty());
+    }
+
+    @Override
+    public Future<Boolean> deleteTemplate(String id) {
+      return Future.succeededFuture(true);
+    }
+  }
+}
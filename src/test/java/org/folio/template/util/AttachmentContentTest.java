@@ -0,0 +1,41 @@
+package org.folio.template.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class AttachmentContentTest {
+
+  @Test
+  void hashIsSha256OfDecodedContent() {
+    String data = Base64.getEncoder().encodeToString("abc".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", AttachmentContent.hash(data));
+    assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), AttachmentContent.decode(data));
+  }
+
+  @Test
+  void sameContentHasSameHashRegardlessOfLineBreaks() {
+    byte[] content = new byte[200];
+    String data = Base64.getEncoder().encodeToString(content);
+    String wrapped = Base64.getMimeEncoder().encodeToString(content);
+
+    assertNotEquals(data, wrapped);
+    assertEquals(AttachmentContent.hash(data), AttachmentContent.hash(wrapped));
+  }
+
+  @Test
+  void onlyLowerCaseSha256HexIsAHash() {
+    assertTrue(AttachmentContent.isHash("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"));
+    assertFalse(AttachmentContent.isHash("BA7816BF8F01CFEA414140DE5DAE2223B00361A396177A9CB410FF61F20015AD"));
+    assertFalse(AttachmentContent.isHash("ba7816bf"));
+    assertFalse(AttachmentContent.isHash(null));
+  }
+}
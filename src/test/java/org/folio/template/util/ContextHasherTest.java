@@ -0,0 +1,62 @@
+package org.folio.template.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+class ContextHasherTest {
+
+  @Test
+  void hashDoesNotDependOnKeyOrder() {
+    JsonObject first = new JsonObject()
+      .put("user", new JsonObject().put("name", "Alex").put("barcode", "123"))
+      .put("item", new JsonObject().put("title", "Book"));
+    JsonObject second = new JsonObject()
+      .put("item", new JsonObject().put("title", "Book"))
+      .put("user", new JsonObject().put("barcode", "123").put("name", "Alex"));
+
+    assertEquals(ContextHasher.hash(first), ContextHasher.hash(second));
+  }
+
+  @Test
+  void hashIsSameForWrappedAndPlainValues() {
+    Map<String, Object> user = new LinkedHashMap<>();
+    user.put("name", "Alex");
+    Map<String, Object> plain = new LinkedHashMap<>();
+    plain.put("user", user);
+    plain.put("loans", List.of("a", "b"));
+
+    JsonObject wrapped = new JsonObject()
+      .put("user", new JsonObject().put("name", "Alex"))
+      .put("loans", new JsonArray().add("a").add("b"));
+
+    assertEquals(ContextHasher.hash(wrapped), ContextHasher.hash(new JsonObject(plain)));
+  }
+
+  @Test
+  void hashDiffersForDifferentContent() {
+    JsonObject first = new JsonObject().put("user", new JsonObject().put("name", "Alex"));
+    JsonObject second = new JsonObject().put("user", new JsonObject().put("name", "Alexa"));
+    JsonObject typed = new JsonObject().put("user", new JsonObject().put("name", 1));
+    JsonObject stringTyped = new JsonObject().put("user", new JsonObject().put("name", "1"));
+
+    assertNotEquals(ContextHasher.hash(first), ContextHasher.hash(second));
+    assertNotEquals(ContextHasher.hash(typed), ContextHasher.hash(stringTyped));
+  }
+
+  @Test
+  void adjacentValuesAreNotAmbiguous() {
+    JsonObject first = new JsonObject().put("list", new JsonArray().add("ab").add("c"));
+    JsonObject second = new JsonObject().put("list", new JsonArray().add("a").add("bc"));
+
+    assertNotEquals(ContextHasher.hash(first), ContextHasher.hash(second));
+  }
+}
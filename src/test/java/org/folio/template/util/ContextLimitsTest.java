@@ -0,0 +1,51 @@
+package org.folio.template.util;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.folio.template.ContextTooLargeException;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+class ContextLimitsTest {
+
+  @Test
+  void contextWithinLimitsIsAccepted() {
+    JsonObject context = new JsonObject()
+      .put("user", new JsonObject().put("firstName", "Jane"))
+      .put("items", new JsonArray().add(new JsonObject().put("barcode", "123")));
+
+    assertDoesNotThrow(() -> new ContextLimits(1_000, 3).check(context));
+    assertDoesNotThrow(() -> new ContextLimits(1_000, 3).check(null));
+  }
+
+  @Test
+  void contextOverSizeLimitIsRejected() {
+    JsonObject context = new JsonObject().put("note", "x".repeat(100));
+
+    ContextTooLargeException exception = assertThrows(ContextTooLargeException.class,
+      () -> new ContextLimits(50, 10).check(context));
+    assertEquals("Template context exceeds the maximum size of 50 characters", exception.getMessage());
+  }
+
+  @Test
+  void contextOverDepthLimitIsRejected() {
+    JsonObject context = new JsonObject()
+      .put("items", new JsonArray().add(new JsonObject().put("item", new JsonObject().put("title", "t"))));
+
+    assertDoesNotThrow(() -> new ContextLimits(1_000, 4).check(context));
+    ContextTooLargeException exception = assertThrows(ContextTooLargeException.class,
+      () -> new ContextLimits(1_000, 3).check(context));
+    assertEquals("Template context is nested deeper than the maximum of 3 levels", exception.getMessage());
+  }
+
+  @Test
+  void zeroDisablesLimits() {
+    JsonObject context = new JsonObject().put("note", "x".repeat(100));
+
+    assertDoesNotThrow(() -> new ContextLimits(0, 0).check(context));
+  }
+}
@@ -0,0 +1,43 @@
+package org.folio.template.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+class ContextOverlayTest {
+
+  @Test
+  void emptyOverlayReturnsBase() {
+    JsonObject base = new JsonObject().put("user", new JsonObject().put("name", "Jane"));
+
+    assertSame(base, new ContextOverlay().applyTo(base));
+  }
+
+  @Test
+  void valuesAreSetWithoutModifyingBase() {
+    JsonObject item = new JsonObject().put("barcode", "1");
+    JsonObject user = new JsonObject().put("name", "Jane");
+    JsonObject base = new JsonObject()
+      .put("loans", new JsonArray().add(new JsonObject().put("item", item)))
+      .put("user", user);
+    JsonObject original = base.copy();
+    ContextOverlay overlay = new ContextOverlay();
+    overlay.put(List.of("loans", 0, "item", "barcodeImage"), "<img>");
+    overlay.put(List.of("loans", 0, "item", "hridImage"), "<hrid>");
+
+    JsonObject result = overlay.applyTo(base);
+
+    assertEquals(original, base);
+    JsonObject resultItem = result.getJsonArray("loans").getJsonObject(0).getJsonObject("item");
+    assertEquals("1", resultItem.getString("barcode"));
+    assertEquals("<img>", resultItem.getString("barcodeImage"));
+    assertEquals("<hrid>", resultItem.getString("hridImage"));
+    assertSame(user.getMap(), result.getJsonObject("user").getMap());
+  }
+}
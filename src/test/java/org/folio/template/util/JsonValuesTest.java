@@ -0,0 +1,48 @@
+package org.folio.template.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+class JsonValuesTest {
+
+  @Test
+  void plainContextIsNotCopied() {
+    Map<String, Object> item = new LinkedHashMap<>(Map.of("barcode", "123"));
+    List<Object> items = new ArrayList<>(List.of(item));
+    Map<String, Object> context = new LinkedHashMap<>(Map.of("items", items));
+
+    Map<String, Object> plain = JsonValues.toPlainMap(new JsonObject(context));
+
+    assertSame(context, plain);
+    assertSame(items, plain.get("items"));
+  }
+
+  @Test
+  void jsonValuesAreConvertedWithoutModifyingTheSource() {
+    JsonObject user = new JsonObject().put("firstName", "Jane");
+    JsonObject context = new JsonObject()
+      .put("user", user)
+      .put("items", new JsonArray().add(new JsonObject().put("barcode", "123")).add("text"))
+      .put("count", 2);
+
+    Map<String, Object> plain = JsonValues.toPlainMap(context);
+
+    assertEquals(Map.of("firstName", "Jane"), assertInstanceOf(Map.class, plain.get("user")));
+    List<?> items = assertInstanceOf(List.class, plain.get("items"));
+    assertEquals(Map.of("barcode", "123"), assertInstanceOf(Map.class, items.get(0)));
+    assertEquals("text", items.get(1));
+    assertEquals(2, plain.get("count"));
+    assertSame(user, context.getValue("user"));
+  }
+}
@@ -0,0 +1,31 @@
+package org.folio.template.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class RenderDateFormatterTest {
+
+  private static final String INPUT_DATE = "2019-06-18T14:04:33.205Z";
+
+  @Test
+  void valuesAreFormattedByTokenSuffix() {
+    RenderDateFormatter formatter = new RenderDateFormatter("de-DE", "Europe/Berlin");
+
+    assertEquals("18.06.19", formatter.format("loan.dueDate", INPUT_DATE));
+    assertEquals("18.06.19, 16:04", formatter.format("loan.dueDateTime", INPUT_DATE));
+    assertEquals(INPUT_DATE, formatter.format("item.title", INPUT_DATE));
+    assertEquals("not a date", formatter.format("loan.dueDate", "not a date"));
+    assertEquals(" ", formatter.format("loan.dueDate", " "));
+  }
+
+  @Test
+  void formattedValuesAreMemoized() {
+    RenderDateFormatter formatter = new RenderDateFormatter("en-US", "UTC");
+
+    String first = formatter.format("loan.dueDate", INPUT_DATE);
+
+    assertSame(first, formatter.format("request.expirationDate", INPUT_DATE));
+  }
+}
@@ -0,0 +1,146 @@
+package org.folio.template.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.folio.rest.tools.utils.BinaryOutStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import io.vertx.core.Vertx;
+
+class ResponseCompressionTest {
+
+  @Test
+  void encodingIsNegotiatedByQuality() {
+    assertEquals("gzip", ResponseCompression.negotiate("gzip, deflate, br"));
+    assertEquals("deflate", ResponseCompression.negotiate("gzip;q=0.5, deflate"));
+    assertEquals("gzip", ResponseCompression.negotiate("*"));
+    assertEquals("deflate", ResponseCompression.negotiate("gzip;q=0, *;q=0.1"));
+    assertNull(ResponseCompression.negotiate("br"));
+    assertNull(ResponseCompression.negotiate("identity"));
+    assertNull(ResponseCompression.negotiate(null));
+  }
+
+  @Test
+  void repeatedCodingCountsWithHighestQuality() {
+    assertEquals("deflate", ResponseCompression.negotiate("deflate;q=1, deflate;q=0"));
+    assertEquals("deflate", ResponseCompression.negotiate("gzip;q=0.5, deflate;q=0.8, deflate;q=0.1"));
+    assertEquals("gzip", ResponseCompression.negotiate("*;q=1, *;q=0"));
+  }
+
+  @Test
+  void largeBodyIsCompressedWithNegotiatedEncoding() throws IOException {
+    ResponseCompression compression = new ResponseCompression(6, 100);
+    String body = "<p>Overdue item</p>".repeat(100);
+
+    Response response = compression.compress(Response.ok(body).build(), "deflate");
+
+    assertEquals("deflate", response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("Accept-Encoding", response.getHeaderString(HttpHeaders.VARY));
+    byte[] compressed = assertInstanceOf(BinaryOutStream.class, response.getEntity()).getData();
+    assertTrue(compressed.length < body.length());
+    assertArrayEquals(body.getBytes(UTF_8), new InflaterInputStream(new ByteArrayInputStream(compressed)).readAllBytes());
+  }
+
+  @Test
+  void gzipBodyCanBeDecompressed() throws IOException {
+    ResponseCompression compression = new ResponseCompression(1, 0);
+    byte[] body = "Hello Alex".getBytes(UTF_8);
+
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compression.encode(body, "gzip")))) {
+      assertArrayEquals(body, in.readAllBytes());
+    }
+  }
+
+  @Test
+  void smallBodyIsNotCompressed() {
+    ResponseCompression compression = new ResponseCompression(6, 1024);
+
+    Response response = compression.compress(Response.ok("Hello Alex").build(), "gzip");
+
+    assertNull(response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("Hello Alex", response.getEntity());
+  }
+
+  @Test
+  void responsesAreNotCompressedWhenDisabled() {
+    ResponseCompression compression = new ResponseCompression(0, 0);
+    Response response = Response.ok("Hello Alex").build();
+
+    assertSame(response, compression.compress(null, response, Map.of("Accept-Encoding", "gzip")).result());
+  }
+
+  @Test
+  void compressedResponseCarriesEntityTagWithCoding() {
+    ResponseCompression compression = new ResponseCompression(6, 0);
+    Response response = Response.ok("Hello Alex").header(HttpHeaders.ETAG, "\"abc\"").build();
+
+    Response compressed = compression.compress(response, "gzip");
+
+    assertEquals("\"abc-gzip\"", compressed.getHeaderString(HttpHeaders.ETAG));
+  }
+
+  @Test
+  void responseIsCompressedOnWorkerThread() throws Exception {
+    Vertx vertx = Vertx.vertx();
+    try {
+      ResponseCompression compression = new ResponseCompression(6, 0);
+
+      Response response = compression.compress(vertx, Response.ok("Hello Alex").build(),
+          Map.of("Accept-Encoding", "gzip"))
+        .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+      assertEquals("gzip", response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+    } finally {
+      vertx.close();
+    }
+  }
+
+  /**
+   * Prints size and CPU time of compressing a notice with a barcode image per compression level. Run with
+   * {@code mvn test -Dtest=ResponseCompressionTest -Dbenchmark=true}.
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  void compareCompressionLevels() {
+    byte[] image = new byte[3000];
+    new Random(42).nextBytes(image);
+    String body = ("{\"result\":{\"header\":\"Overdue items\",\"body\":\""
+      + "<p>The Hitchhiker's Guide (31924001234567) due 2026-10-19</p>".repeat(20)
+      + "\",\"attachments\":[{\"contentType\":\"image/png\",\"disposition\":\"inline\",\"data\":\""
+      + Base64.getEncoder().encodeToString(image) + "\"}]}}");
+    byte[] bytes = body.getBytes(UTF_8);
+    int iterations = 2_000;
+
+    for (int level = 1; level <= 9; level++) {
+      ResponseCompression compression = new ResponseCompression(level, 0);
+      int size = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        size = compression.encode(bytes, "gzip").length;
+      }
+      long micros = TimeUnit.NANOSECONDS.toMicros((System.nanoTime() - start) / iterations);
+      System.out.printf("level %d: %d -> %d bytes, %d us%n", level, bytes.length, size, micros);
+      assertTrue(size > 0);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package org.folio.template.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.Attachment;
+import org.folio.rest.jaxrs.model.Result;
+import org.folio.rest.jaxrs.model.TemplateProcessingResult;
+import org.junit.jupiter.api.Test;
+
+class SharedAttachmentsTest {
+
+  @Test
+  void attachmentsSharedByResultsAreListedOnce() {
+    Attachment barcode = createAttachment("<barcode_1>", "data-1");
+    Attachment logo = createAttachment("<logo>", "data-2");
+    TemplateProcessingResult first = createResult(barcode, logo);
+    TemplateProcessingResult second = createResult(createAttachment("<barcode_1>", "data-1"));
+    TemplateProcessingResult third = createResult();
+
+    List<Attachment> shared = SharedAttachments.extract(List.of(first, second, third));
+
+    assertEquals(List.of(barcode, logo), shared);
+    assertEquals(List.of("<barcode_1>", "<logo>"), first.getAttachmentContentIds());
+    assertEquals(List.of("<barcode_1>"), second.getAttachmentContentIds());
+    assertTrue(first.getResult().getAttachments().isEmpty());
+    assertTrue(second.getResult().getAttachments().isEmpty());
+  }
+
+  @Test
+  void attachmentsThatCannotBeSharedStayInTheirResult() {
+    Attachment withoutContentId = createAttachment(null, "data-1");
+    Attachment conflicting = createAttachment("<barcode_1>", "other-data");
+    TemplateProcessingResult first = createResult(createAttachment("<barcode_1>", "data-1"));
+    TemplateProcessingResult second = createResult(withoutContentId, conflicting);
+
+    List<Attachment> shared = SharedAttachments.extract(List.of(first, second));
+
+    assertEquals(1, shared.size());
+    assertEquals(List.of(withoutContentId, conflicting), second.getResult().getAttachments());
+    assertTrue(second.getAttachmentContentIds().isEmpty());
+  }
+
+  private static TemplateProcessingResult createResult(Attachment... attachments) {
+    return new TemplateProcessingResult()
+      .withResult(new Result()
+        .withHeader("header")
+        .withBody("body")
+        .withAttachments(List.of(attachments)));
+  }
+
+  private static Attachment createAttachment(String contentId, String data) {
+    return new Attachment()
+      .withContentId(contentId)
+      .withContentType("image/png")
+      .withDisposition("inline")
+      .withName("barcode")
+      .withData(data);
+  }
+}
@@ -0,0 +1,25 @@
+package org.folio.template.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TemplateAnalysisTest {
+
+  @Test
+  void tokensAreCollectedFromHeaderAndBody() {
+    TemplateAnalysis analysis = TemplateAnalysis.analyze(new TemplateAnalysis.Source(
+      "Hello {{user.name}}", "{{item.barcodeImage}} {{{user.pet.hint}}} {{#loans}}{{title}}{{/loans}}"));
+
+    assertEquals(Set.of("user.name", "item.barcodeImage", "title"), analysis.getTokens());
+  }
+
+  @Test
+  void tokensSplitBetweenHeaderAndBodyAreNotJoined() {
+    TemplateAnalysis analysis = TemplateAnalysis.analyze(new TemplateAnalysis.Source("{{user", ".name}}"));
+
+    assertEquals(Set.of(), analysis.getTokens());
+  }
+}
@@ -13,49 +13,6 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class TemplateContextPreProcessorTest {
 
-  @Test
-  void contextIsEnrichedWithAdditionalDateTimeTokens() {
-    String inputDate = "2019-06-18T14:04:33.205Z";
-
-    LocalizedTemplatesProperty template = new LocalizedTemplatesProperty()
-      .withHeader("Test")
-      .withBody("{{rootDateTime}}" +
-        "{{emptyDateTime}}" +
-        "{{blankDateTime}}" +
-        "{{nullDateTime}}" +
-        "{{loan.dueDateTime}}" +
-        "{{loan.enrichableDateTime}}" +
-        "{{loan.existingDateTime}}");
-
-    JsonObject inputJson = new JsonObject()
-      .put("rootDate", inputDate)
-      .put("emptyDate", "")
-      .put("blankDate", "   ")
-      .putNull("nullDate")
-      .put("loan", new JsonObject()
-        .put("dueDate", inputDate)
-        .put("enrichableDate", inputDate)
-        .put("existingDate", inputDate)
-        .put("existingDateTime", "unchanged"));
-
-    JsonObject expectedJson = new JsonObject()
-      .put("rootDate", inputDate)
-      .put("emptyDate", "")
-      .put("blankDate", "   ")
-      .putNull("nullDate")
-      .put("loan", new JsonObject()
-        .put("dueDate", inputDate)
-        .put("enrichableDate", inputDate)
-        .put("existingDate", inputDate)
-        .put("existingDateTime", "unchanged")
-        .put("dueDateTime", inputDate)
-        .put("enrichableDateTime", inputDate))
-      .put("rootDateTime", inputDate);
-
-    new TemplateContextPreProcessor(template, inputJson, null).enrichContextWithDateTimes();
-    assertEquals(expectedJson, inputJson);
-  }
-
   @Test
   void barcodeImageTokensAndAttachmentsAreCreated() {
     LocalizedTemplatesProperty template = new LocalizedTemplatesProperty()
@@ -88,10 +45,11 @@ class TemplateContextPreProcessorTest {
     String expectedAttachmentDisposition = "inline";
     String expectedAttachmentContentType = "image/png";
 
-    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson, null);
+    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson);
     processor.handleBarcodeImageTokens();
 
-    assertEquals(expectedJson, inputJson);
+    assertEquals(expectedJson, processor.getContext());
+    assertFalse(inputJson.getJsonObject("item").containsKey("barcodeImage"));
 
     List<Attachment> attachments = processor.getAttachments();
     assertEquals(1, attachments.size());
@@ -137,10 +95,10 @@ class TemplateContextPreProcessorTest {
     String expectedAttachmentDisposition = "inline";
     String expectedAttachmentContentType = "image/png";
 
-    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson, null);
+    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson);
     processor.handleBarcodeImageTokens();
 
-    assertEquals(expectedJson, inputJson);
+    assertEquals(expectedJson, processor.getContext());
 
     List<Attachment> attachments = processor.getAttachments();
     assertEquals(1, attachments.size());
@@ -171,10 +129,10 @@ class TemplateContextPreProcessorTest {
         .put("barcode", "11111")
         .put("barcodeImage", "<img src='cid:barcode_11111' alt='barcode_11111'>"));
 
-    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson, null);
+    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson);
     processor.handleBarcodeImageTokens();
 
-    assertEquals(expectedJson, inputJson);
+    assertEquals(expectedJson, processor.getContext());
     assertEquals(1, processor.getAttachments().size());
   }
 
@@ -194,11 +152,77 @@ class TemplateContextPreProcessorTest {
         .put("name", "Tester")
         .put("barcode", "11111"));
 
-    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson, null);
+    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson);
     processor.handleBarcodeImageTokens();
 
-    assertEquals(expectedJson, inputJson);
+    assertEquals(expectedJson, processor.getContext());
     assertTrue(processor.getAttachments().isEmpty());
   }
 
-}
\ No newline at end of file
+  @Test
+  void suppliedBarcodeImageValuesAreEscaped() {
+    LocalizedTemplatesProperty template = new LocalizedTemplatesProperty()
+      .withBody("{{item.barcodeImage}} {{user.barcodeImage}}");
+
+    JsonObject inputJson = new JsonObject()
+      .put("item", new JsonObject()
+        .put("barcode", "123456789")
+        .put("barcodeImage", "<script>alert(1)</script>"))
+      .put("user", new JsonObject()
+        .put("barcodeImage", "<script>alert(2)</script>"));
+
+    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson);
+    processor.handleBarcodeImageTokens();
+
+    JsonObject context = processor.getContext();
+    assertEquals("<img src='cid:barcode_123456789' alt='barcode_123456789'>",
+      context.getJsonObject("item").getString("barcodeImage"));
+    assertEquals("&lt;script&gt;alert(2)&lt;/script&gt;", context.getJsonObject("user").getString("barcodeImage"));
+    assertEquals("<script>alert(2)</script>", inputJson.getJsonObject("user").getString("barcodeImage"));
+  }
+
+  @Test
+  void suppliedBarcodeImageValuesAreEscapedWhenTemplateAnalysisMissesTheirTokens() {
+    LocalizedTemplatesProperty template = new LocalizedTemplatesProperty()
+      .withBody("{{item2.barcodeImage}} {{loan_item.barcodeImage}} {{ user.barcodeImage }}");
+
+    JsonObject inputJson = new JsonObject()
+      .put("item2", new JsonObject().put("barcodeImage", "<script>alert(1)</script>"))
+      .put("loan_item", new JsonObject().put("barcodeImage", "<script>alert(2)</script>"))
+      .put("user", new JsonObject().put("barcodeImage", "<script>alert(3)</script>"));
+
+    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson);
+    processor.handleBarcodeImageTokens();
+
+    JsonObject context = processor.getContext();
+    assertEquals("&lt;script&gt;alert(1)&lt;/script&gt;", context.getJsonObject("item2").getString("barcodeImage"));
+    assertEquals("&lt;script&gt;alert(2)&lt;/script&gt;",
+      context.getJsonObject("loan_item").getString("barcodeImage"));
+    assertEquals("&lt;script&gt;alert(3)&lt;/script&gt;", context.getJsonObject("user").getString("barcodeImage"));
+  }
+
+  @Test
+  void barcodeValueIsEscapedInGeneratedImage() {
+    LocalizedTemplatesProperty template = new LocalizedTemplatesProperty()
+      .withBody("{{item.barcodeImage}}");
+
+    JsonObject inputJson = new JsonObject()
+      .put("item", new JsonObject().put("barcode", "1' onerror='alert(1)"));
+
+    TemplateContextPreProcessor processor = new TemplateContextPreProcessor(template, inputJson);
+    processor.handleBarcodeImageTokens();
+
+    assertEquals("<img src='cid:barcode_1&#39; onerror=&#39;alert(1)' alt='barcode_1&#39; onerror=&#39;alert(1)'>",
+      processor.getContext().getJsonObject("item").getString("barcodeImage"));
+    assertEquals("barcode_1' onerror='alert(1)", processor.getAttachments().get(0).getName());
+  }
+
+  @Test
+  void barcodeImageTokensAreRecognized() {
+    assertTrue(TemplateContextPreProcessor.isBarcodeImageToken("item.barcodeImage"));
+    assertTrue(TemplateContextPreProcessor.isBarcodeImageToken("item.instanceHridImage"));
+    assertFalse(TemplateContextPreProcessor.isBarcodeImageToken("barcodeImage"));
+    assertFalse(TemplateContextPreProcessor.isBarcodeImageToken("item.barcode"));
+    assertFalse(TemplateContextPreProcessor.isBarcodeImageToken("item.coverImage"));
+  }
+}
@@ -0,0 +1,46 @@
+package org.folio.template.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TemplateETagTest {
+
+  @Test
+  void digestIsQuoted() {
+    assertEquals("\"abc\"", TemplateETag.format("abc"));
+  }
+
+  @Test
+  void ifNoneMatchUsesWeakComparison() {
+    String etag = TemplateETag.format("abc");
+
+    assertTrue(TemplateETag.matchesAny("\"abc\"", etag));
+    assertTrue(TemplateETag.matchesAny("\"xyz\", W/\"abc\"", etag));
+    assertTrue(TemplateETag.matchesAny(" * ", etag));
+    assertFalse(TemplateETag.matchesAny("\"xyz\"", etag));
+    assertFalse(TemplateETag.matchesAny(null, etag));
+  }
+
+  @Test
+  void ifMatchSkipsWeakTags() {
+    assertEquals(List.of("abc", "def"), TemplateETag.parseStrongDigests("\"abc\", W/\"xyz\",\"def\", broken"));
+    assertTrue(TemplateETag.isAny("*"));
+    assertFalse(TemplateETag.isAny("\"abc\""));
+  }
+
+  @Test
+  void codingSuffixIsIgnoredByPreconditions() {
+    String etag = TemplateETag.format("abc");
+
+    assertEquals("\"abc-gzip\"", TemplateETag.withCoding(etag, "gzip"));
+    assertTrue(TemplateETag.matchesAny("\"abc-gzip\"", etag));
+    assertTrue(TemplateETag.matchesAny("W/\"abc-deflate\"", etag));
+    assertFalse(TemplateETag.matchesAny("\"abc-br\"", etag));
+    assertEquals(List.of("abc", "def"), TemplateETag.parseStrongDigests("\"abc-gzip\", \"def\""));
+  }
+}
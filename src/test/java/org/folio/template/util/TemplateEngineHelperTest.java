@@ -1,7 +1,10 @@
 package org.folio.template.util;
 
 import org.folio.HttpStatus;
+import org.folio.template.ContextTooLargeException;
 import org.folio.template.InUseTemplateException;
+import org.folio.template.RenderCapacityExceededException;
+import org.folio.template.RenderLimitExceededException;
 import org.junit.jupiter.api.Test;
 
 import javax.ws.rs.BadRequestException;
@@ -28,6 +31,21 @@ class TemplateEngineHelperTest {
     assertEquals(MediaType.TEXT_PLAIN_TYPE, response.getMediaType());
     assertEquals("Cannot delete template which is currently in use", response.getEntity());
 
+    response = TemplateEngineHelper.mapExceptionToResponse(
+      new RenderCapacityExceededException("Template engine is overloaded, retry later", 503, 2));
+    assertEquals(503, response.getStatus());
+    assertEquals("2", response.getHeaderString("Retry-After"));
+
+    response = TemplateEngineHelper.mapExceptionToResponse(
+      new RenderLimitExceededException("Rendering the template took longer than 10 ms"));
+    assertEquals(422, response.getStatus());
+    assertEquals("Rendering the template took longer than 10 ms", response.getEntity());
+
+    response = TemplateEngineHelper.mapExceptionToResponse(
+      new ContextTooLargeException("Template context exceeds the maximum size of 10 characters"));
+    assertEquals(413, response.getStatus());
+    assertEquals(MediaType.TEXT_PLAIN, response.getMediaType().toString());
+
     response = TemplateEngineHelper.mapExceptionToResponse(new NullPointerException());
     assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, response.getStatus());
   }